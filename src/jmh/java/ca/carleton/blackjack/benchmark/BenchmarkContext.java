@@ -0,0 +1,88 @@
+package ca.carleton.blackjack.benchmark;
+
+import ca.carleton.blackjack.game.BlackJackGame;
+import ca.carleton.blackjack.game.BlackJackService;
+import ca.carleton.blackjack.game.DealerOutcomeCalculator;
+import ca.carleton.blackjack.game.Shoe;
+import ca.carleton.blackjack.game.ShoePool;
+import ca.carleton.blackjack.game.TurnHandler;
+import ca.carleton.blackjack.journal.RoundJournal;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+/**
+ * The game beans the benchmarks need, started once per benchmark JVM without the web server. The round journal is
+ * left off so runs don't fill the disk.
+ * <p/>
+ * Created by Mike on 11/26/2015.
+ */
+final class BenchmarkContext {
+
+    private static ConfigurableApplicationContext context;
+
+    private BenchmarkContext() {
+    }
+
+    static synchronized ConfigurableApplicationContext get() {
+        if (context == null) {
+            context = new SpringApplicationBuilder(BlackJackGame.class,
+                    BlackJackService.class,
+                    DealerOutcomeCalculator.class,
+                    Shoe.class,
+                    ShoePool.class,
+                    TurnHandler.class,
+                    RoundJournal.class,
+                    PropertySourcesPlaceholderConfigurer.class)
+                    .web(false)
+                    .showBanner(false)
+                    .properties("logging.level.ca.carleton.blackjack=ERROR", "blackjack.journal.enabled=false")
+                    .run();
+        }
+        return context;
+    }
+
+    /**
+     * A table of AI players (and the dealer), nobody dealt in yet.
+     *
+     * @param players how many AI, from 1 to {@link BlackJackGame#MAX_SEATS}.
+     * @return the game.
+     */
+    static BlackJackGame aiTable(final int players) {
+        final BlackJackGame game = get().getBean(BlackJackGame.class);
+        game.setSeats(players);
+        game.openLobby(0);
+        game.registerAI();
+        return game;
+    }
+
+    /**
+     * A table of real players (and the dealer), with the first hands dealt.
+     *
+     * @param players how many players, from 1 to {@link BlackJackGame#MAX_SEATS}.
+     * @return the game.
+     */
+    static BlackJackGame dealtRealTable(final int players) {
+        final BlackJackGame game = get().getBean(BlackJackGame.class);
+        game.setSeats(players);
+        for (int i = 0; i < players; i++) {
+            game.registerPlayer(new StubSession("player-" + i));
+        }
+        game.registerDealer();
+        game.dealInitialHands();
+        return game;
+    }
+
+    /**
+     * A table of AI players (and the dealer), with the first hands dealt.
+     *
+     * @param players how many AI, from 1 to {@link BlackJackGame#MAX_SEATS}.
+     * @return the game.
+     */
+    static BlackJackGame dealtAITable(final int players) {
+        final BlackJackGame game = aiTable(players);
+        game.dealInitialHands();
+        return game;
+    }
+
+}
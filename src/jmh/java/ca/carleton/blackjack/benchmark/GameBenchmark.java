@@ -0,0 +1,104 @@
+package ca.carleton.blackjack.benchmark;
+
+import ca.carleton.blackjack.game.BlackJackGame;
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.message.GameMessage;
+import ca.carleton.blackjack.simulation.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Table-wide work: the card messages sent after every move (a full snapshot, and just what changed), settling a
+ * round, and a whole round from the deal to the results.
+ * <p/>
+ * Created by Mike on 11/26/2015.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /**
+     * A table of real players with their first hands dealt.
+     */
+    @State(Scope.Thread)
+    public static class RealTable {
+
+        @Param({"1", "3", "7"})
+        private int players;
+
+        private BlackJackGame game;
+
+        @Setup
+        public void setUp() {
+            this.game = BenchmarkContext.dealtRealTable(this.players);
+        }
+
+    }
+
+    /**
+     * A table of AI players waiting for the next round.
+     */
+    @State(Scope.Thread)
+    public static class AITable {
+
+        @Param({"1", "3", "7"})
+        private int players;
+
+        private BlackJackGame game;
+
+        @Setup
+        public void setUp() {
+            this.game = BenchmarkContext.aiTable(this.players);
+        }
+
+    }
+
+    @Benchmark
+    public Map<Player, List<GameMessage>> buildHandMessages(final RealTable table) {
+        return table.game.buildHandMessages();
+    }
+
+    /**
+     * Someone hit: one new card, then the updates everyone is sent.
+     */
+    @Benchmark
+    public Map<Player, List<GameMessage>> buildHandUpdates(final RealTable table) {
+        table.game.performOption(table.game.getDealer(), GameOption.HIT);
+        if (table.game.getDealer().getHand().size() >= 7) {
+            table.game.resetRound();
+            table.game.dealInitialHands();
+        }
+        return table.game.buildHandUpdates();
+    }
+
+    @Benchmark
+    public BlackJackGame resolveRound(final RealTable table) {
+        table.game.resolveRound();
+        return table.game;
+    }
+
+    @Benchmark
+    public BlackJackGame fullRound(final AITable table) {
+        Simulation.playRound(table.game);
+        table.game.resetRound();
+        return table.game;
+    }
+
+}
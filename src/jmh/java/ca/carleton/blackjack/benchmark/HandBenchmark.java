@@ -0,0 +1,68 @@
+package ca.carleton.blackjack.benchmark;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading hand values, which every AI decision and every card update does.
+ * <p/>
+ * Created by Mike on 11/26/2015.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandBenchmark {
+
+    private static final Rank[] RANKS = {Rank.ACE_HIGH, Rank.TWO, Rank.THREE, Rank.ACE_HIGH, Rank.FOUR, Rank.TWO,
+            Rank.THREE};
+
+    @Param({"2", "7"})
+    private int cards;
+
+    private Hand hand;
+
+    @Setup
+    public void setUp() {
+        this.hand = new Hand();
+        for (int i = 0; i < this.cards; i++) {
+            this.hand.addCard(Card.of(RANKS[i], Suit.values()[i % Suit.values().length]), i == 0);
+        }
+    }
+
+    @Benchmark
+    public long getHandValue() {
+        return this.hand.getHandValue();
+    }
+
+    @Benchmark
+    public long getVisibleHandValue() {
+        return this.hand.getVisibleHandValue();
+    }
+
+    @Benchmark
+    public Hand addAndClear() {
+        final Hand fresh = new Hand();
+        fresh.copyFrom(this.hand);
+        fresh.clearHand();
+        return fresh;
+    }
+
+}
@@ -0,0 +1,62 @@
+package ca.carleton.blackjack.benchmark;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.message.CardFragments;
+import ca.carleton.blackjack.game.message.MessageUtil.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.concurrent.TimeUnit;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.message;
+import static ca.carleton.blackjack.game.message.MessageUtil.gameMessage;
+
+/**
+ * Building the text and binary messages sent to players.
+ * <p/>
+ * Created by Mike on 11/26/2015.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+    private final Card card = Card.of(7);
+
+    @Benchmark
+    public TextMessage formatted() {
+        return message(Message.WINNER, "AI-1243513", 20L).build();
+    }
+
+    @Benchmark
+    public TextMessage constant() {
+        return message(Message.YOUR_TURN).build();
+    }
+
+    @Benchmark
+    public TextMessage prerenderedCard() {
+        return CardFragments.playerCard(this.card).toText();
+    }
+
+    @Benchmark
+    public byte[] binaryFormatted() {
+        return gameMessage(Message.WINNER, "AI-1243513", 20L).toRecord();
+    }
+
+    @Benchmark
+    public byte[] binaryCard() {
+        return CardFragments.playerCard(this.card).toRecord();
+    }
+
+}
@@ -0,0 +1,82 @@
+package ca.carleton.blackjack.benchmark;
+
+import ca.carleton.blackjack.game.BlackJackGame;
+import ca.carleton.blackjack.game.BlackJackService;
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.StrategyTable;
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI and dealer decisions against a freshly dealt table.
+ * <p/>
+ * Created by Mike on 11/26/2015.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"1", "3", "7"})
+    private int players;
+
+    private BlackJackService service;
+
+    private AIPlayer houseAI;
+
+    private AIPlayer basicAI;
+
+    private AIPlayer dealer;
+
+    private List<Player> others;
+
+    @Setup
+    public void setUp() {
+        this.service = BenchmarkContext.get().getBean(BlackJackService.class);
+        final BlackJackGame game = BenchmarkContext.dealtAITable(this.players);
+        this.dealer = (AIPlayer) game.getDealer();
+        for (final Player player : game.getConnectedPlayers()) {
+            if (player != this.dealer) {
+                this.houseAI = (AIPlayer) player;
+            }
+        }
+        this.houseAI.setStrategy(null);
+        this.others = game.getAllPlayersExceptFor(this.houseAI);
+        this.basicAI = new AIPlayer(null);
+        this.basicAI.getHand().copyFrom(this.houseAI.getHand());
+        this.basicAI.setStrategy(StrategyTable.BASIC);
+    }
+
+    @Benchmark
+    public GameOption getAIOptionHouse() {
+        return this.service.getAIOption(this.houseAI, this.others);
+    }
+
+    @Benchmark
+    public GameOption getAIOptionBasic() {
+        return this.service.getAIOption(this.basicAI, this.others);
+    }
+
+    @Benchmark
+    public GameOption getDealerOption() {
+        return this.service.getDealerOption(this.dealer);
+    }
+
+}
@@ -0,0 +1,53 @@
+package ca.carleton.blackjack.benchmark;
+
+import ca.carleton.blackjack.game.Shoe;
+import ca.carleton.blackjack.game.entity.card.Card;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shuffling a shoe and drawing from it (what used to be Deck.init and Deck.draw).
+ * <p/>
+ * Created by Mike on 11/26/2015.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShoeBenchmark {
+
+    @Param({"1", "8"})
+    private int decks;
+
+    private Shoe shoe;
+
+    @Setup
+    public void setUp() {
+        this.shoe = new Shoe(this.decks, 0.75);
+    }
+
+    @Benchmark
+    public Shoe shuffle() {
+        this.shoe.shuffle();
+        return this.shoe;
+    }
+
+    @Benchmark
+    public Card draw() {
+        return this.shoe.draw();
+    }
+
+}
@@ -35,6 +35,8 @@ public class BlackJackApplication extends SpringBootServletInitializer implement
     public void registerWebSocketHandlers(final WebSocketHandlerRegistry webSocketHandlerRegistry) {
         webSocketHandlerRegistry.addHandler(this.blackJackSocketHandler, "/game")
                 .withSockJS();
+        // SockJS can only carry text, so clients wanting binary frames connect here instead.
+        webSocketHandlerRegistry.addHandler(this.blackJackSocketHandler, "/game-ws");
     }
 
     @Override
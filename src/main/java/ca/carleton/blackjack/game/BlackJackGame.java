@@ -3,17 +3,19 @@ package ca.carleton.blackjack.game;
 import ca.carleton.blackjack.game.entity.AIPlayer;
 import ca.carleton.blackjack.game.entity.Player;
 import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
 import ca.carleton.blackjack.game.entity.card.HandStatus;
-import ca.carleton.blackjack.game.entity.card.Rank;
-import ca.carleton.blackjack.game.message.MessageUtil;
+import ca.carleton.blackjack.game.message.GameMessage;
+import ca.carleton.blackjack.journal.JournalEvent;
+import ca.carleton.blackjack.journal.RoundJournal;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import javax.annotation.PostConstruct;
@@ -22,15 +24,20 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
-import static ca.carleton.blackjack.game.message.MessageUtil.message;
 import static java.util.stream.Collectors.toList;
-import static org.apache.commons.collections.CollectionUtils.size;
-import static org.apache.commons.collections.MapUtils.isNotEmpty;
-import static org.springframework.util.CollectionUtils.containsAny;
 
 /**
  * Model class for the game.
  * <p/>
+ * Players sit in a fixed array of seats, in the order they joined, with the dealer in the last one. A player keeps
+ * their seat for as long as they're at the table (an AI that takes over for someone who left takes their seat too), so
+ * finding a player's id, the dealer or the admin never means searching.
+ * <p/>
+ * Tables seat {@code blackjack.table.seats} players besides the dealer unless the admin asks for a different size when
+ * they open the lobby, up to {@link #MAX_SEATS}.
+ * <p/>
+ * Every card dealt or drawn, move, reveal and result is appended to the {@link RoundJournal}.
+ * <p/>
  * Created by Mike on 10/7/2015.
  */
 @Component
@@ -39,7 +46,13 @@ public class BlackJackGame {
 
     private static final Logger LOG = LoggerFactory.getLogger(BlackJackGame.class);
 
-    private static final int DEFAULT_MAX_PLAYERS = 3;
+    /**
+     * Most players a table can seat, not counting the dealer.
+     */
+    public static final int MAX_SEATS = 7;
+
+    @Value("${blackjack.table.seats:3}")
+    private int defaultSeats;
 
     private final AtomicInteger counter = new AtomicInteger(1243512);
 
@@ -47,10 +60,33 @@ public class BlackJackGame {
 
     private State gameState;
 
-    private Map<String, Player> players;
+    /**
+     * Player seats followed by the dealer's. Empty seats are null.
+     */
+    private Player[] seats;
+
+    /**
+     * The id each seated player is known by - their session id, or an AI id.
+     */
+    private String[] ids;
+
+    private int seated;
+
+    private final Map<String, Player> sessions = new HashMap<>();
+
+    private Player admin;
+
+    /**
+     * Everyone seated, in seat order. Rebuilt (never changed) when the seating changes, so callers can hold on to it.
+     */
+    private List<Player> connected = Collections.emptyList();
+
+    private List<Player> connectedReal = Collections.emptyList();
 
     @Autowired
-    private Deck deck;
+    private ShoePool shoePool;
+
+    private Shoe shoe;
 
     @Autowired
     private TurnHandler turnHandler;
@@ -58,8 +94,28 @@ public class BlackJackGame {
     @Autowired
     private BlackJackService blackJackService;
 
+    @Autowired
+    private RoundJournal journal;
+
+    /**
+     * This table's number in the journal, and how many rounds it has dealt.
+     */
+    private int journalTable;
+
+    private long round;
+
     private boolean waitingOnReal;
 
+    /**
+     * Bumped whenever a hand or the seating changes, so players who are already up to date can be skipped.
+     */
+    private long version;
+
+    /**
+     * What each real player has been sent about the hands so far.
+     */
+    private final Map<Player, HandView> views = new IdentityHashMap<>();
+
     /**
      * The game state we're in *
      */
@@ -71,10 +127,19 @@ public class BlackJackGame {
 
     @PostConstruct
     public void init() {
-        this.players = new HashMap<>();
+        if (this.journalTable == 0) {
+            this.journalTable = this.journal.newTable();
+        }
+        this.seats = new Player[Math.min(Math.max(1, this.defaultSeats), MAX_SEATS) + 1];
+        this.ids = new String[this.seats.length];
+        this.seated = 0;
+        this.sessions.clear();
+        this.admin = null;
+        this.views.clear();
+        this.seatingChanged();
         this.gameState = State.WAITING_FOR_ADMIN;
         this.turnHandler.clearAll();
-        this.deck.reset();
+        this.shoe = this.shoePool.exchange(this.shoe);
         this.roundMaxPlayers = -1;
     }
 
@@ -87,16 +152,16 @@ public class BlackJackGame {
             player.getHand().setHandStatus(null);
             player.setLastOption(null);
         }
+        this.version++;
         this.setGameState(State.WAITING_FOR_PLAYERS);
         this.turnHandler.clearAll();
-        this.deck.reset();
         LOG.info("Round reset.");
     }
 
     /**
-     * Get the next player to go.
+     * Get the next player to go. Players who are done for the round are never returned.
      *
-     * @return the player.
+     * @return the player, or null if everyone is done.
      */
     public Player getNextPlayer() {
         if (this.turnHandler.requiresReInitialization()) {
@@ -114,94 +179,160 @@ public class BlackJackGame {
      */
     public void dealInitialHands() {
         this.gameState = State.PLAYING;
-        this.players.forEach((uid, player) -> {
-            final Card hiddenCard = this.deck.draw();
-            hiddenCard.setHidden(true);
-            player.getHand().addCard(hiddenCard);
-            player.getHand().addCard(this.deck.draw());
-            LOG.info("Dealt {} to {}.", player.getHand(), uid);
-        });
+        if (this.shoe.isCutCardReached()) {
+            LOG.info("Cut card reached - swapping in a freshly shuffled shoe.");
+            this.shoe = this.shoePool.exchange(this.shoe);
+        }
+        this.shoe.startRound();
+        this.round++;
+        this.journal.round(this.journalTable, this.round, this.seated);
+        for (final Player player : this.connected) {
+            final Card down = this.shoe.draw();
+            final Card up = this.shoe.draw();
+            player.getHand().addCard(down, true);
+            player.getHand().addCard(up);
+            this.journalCard(JournalEvent.DEAL, player, down, RoundJournal.HIDDEN);
+            this.journalCard(JournalEvent.DEAL, player, up, 0);
+            LOG.info("Dealt {} to {}.", player.getHand(), this.ids[player.getSeat()]);
+        }
+        this.version++;
     }
 
     /**
-     * Build a list of messages to send to each player session, which contains the hand states of each card so far.
+     * Build the messages each real player needs to bring their view of the hands up to date. Only the cards, reveals
+     * and values that changed since they were last sent are included - players who haven't been sent anything yet (or
+     * asked to {@link #resync(Player)}) get a full snapshot.
      *
-     * @return the map of player keyed to their list of messages.
+     * @return the map of player keyed to their list of messages. Players with nothing new are left out.
      */
-    public Map<Player, List<TextMessage>> buildHandMessages() {
-        final Map<Player, List<TextMessage>> messages = new HashMap<>();
+    public Map<Player, List<GameMessage>> buildHandUpdates() {
+        final Map<Player, List<GameMessage>> messages = new IdentityHashMap<>();
+        final Player dealer = this.getDealer();
+        for (final Player player : this.getConnectedRealPlayers()) {
+            final HandView view = this.views.computeIfAbsent(player, key -> new HandView());
+            if (view.getVersion() == this.version) {
+                continue;
+            }
+            final List<GameMessage> playerMessages = new ArrayList<>();
+            view.update(this.seatsFor(player, dealer), this.round, this.version, this::getSessionIdFor,
+                    playerMessages);
+            if (!playerMessages.isEmpty()) {
+                messages.put(player, playerMessages);
+            }
+        }
+        return messages;
+    }
 
-        int otherPlayerIndex = 1;
+    /**
+     * Build a full snapshot of every hand for each real player, whatever they were sent before.
+     *
+     * @return the map of player keyed to their list of messages.
+     */
+    public Map<Player, List<GameMessage>> buildHandMessages() {
+        this.views.clear();
+        return this.buildHandUpdates();
+    }
 
-        // We only need to do this for real players.
-        for (final Player player : this.getConnectedRealPlayers()) {
+    /**
+     * Forget what the given player has been sent, so their next update is a full snapshot.
+     *
+     * @param player the player.
+     */
+    public void resync(final Player player) {
+        this.views.remove(player);
+    }
 
-            messages.putIfAbsent(player, new ArrayList<>());
-            final List<TextMessage> playerMessages = messages.get(player);
-
-            // Step 0, build the message that we're dealing the cards.
-            playerMessages.add(message(MessageUtil.Message.DEALING_CARDS).build());
-
-            // Step 1, build the messages to send the player their cards.
-            player.getHand()
-                    .getCards()
-                    .forEach(card -> {
-                        // Make it temporarily visible to the player (i.e we want to show it to the person).
-                        if (card.isHidden()) {
-                            card.setHidden(false);
-                            playerMessages.add(message(MessageUtil.Message.ADD_PLAYER_CARD,
-                                    card.toHTMLString()).build());
-                            card.setHidden(true);
-                        } else {
-                            playerMessages.add(message(MessageUtil.Message.ADD_PLAYER_CARD,
-                                    card.toHTMLString()).build());
-                        }
-                    });
-
-            playerMessages.add(message(MessageUtil.Message.PLAYER_VALUE, player.getHand().getHandValue()).build());
-
-            // Step 2, build the messages to send the player the dealer's cards.
-            this.getDealer().getHand()
-                    .getCards()
-                    .forEach(card -> playerMessages.add(message(MessageUtil.Message.ADD_DEALER_CARD,
-                            card.toHTMLString()).build()));
-
-            playerMessages.add(message(MessageUtil.Message.DEALER_VALUE,
-                    this.getDealer().getHand().getVisibleHandValue()).build());
-
-            final List<Player> playersOtherThanCurrent = this.getConnectedPlayers().stream()
-                    .filter(other -> !player.equals(other))
-                    .filter(other -> (other instanceof AIPlayer && !((AIPlayer) other).isDealer()) || other.isReal())
-                    .collect(Collectors.toList());
-
-            // Step 3, build the messages to send the player the other player's (AI's) cards.
-            for (final Player playerOtherThanCurrent : playersOtherThanCurrent) {
-                for (final Card card : playerOtherThanCurrent.getHand().getCards()) {
-                    playerMessages.add(message(MessageUtil.Message.ADD_OTHER_PLAYER_CARD,
-                            card.toHTMLString(),
-                            otherPlayerIndex,
-                            this.getSessionIdFor(playerOtherThanCurrent))
-                            .build());
-                }
+    public long getVersion() {
+        return this.version;
+    }
 
-                playerMessages.add(message(MessageUtil.Message.OTHER_VALUE,
-                        otherPlayerIndex,
-                        playerOtherThanCurrent.getHand().getVisibleHandValue()).build());
+    /**
+     * @return this table's number in the round journal.
+     */
+    public int getJournalTable() {
+        return this.journalTable;
+    }
 
-                otherPlayerIndex++;
+    /**
+     * The hands a player sees, in the order {@link HandView} expects: their own, the dealer's, then everyone else's.
+     */
+    private Player[] seatsFor(final Player player, final Player dealer) {
+        final Player[] seats = new Player[this.seated];
+        seats[0] = player;
+        seats[1] = dealer;
+        int next = 2;
+        for (final Player other : this.connected) {
+            if (other != player && other != dealer) {
+                seats[next++] = other;
             }
-
-            otherPlayerIndex = 1;
         }
+        return seats;
+    }
 
-        return messages;
+    /**
+     * How many players the table seats, not counting the dealer.
+     *
+     * @return the number of seats.
+     */
+    public int getSeats() {
+        return this.seats.length - 1;
     }
 
-    public void openLobby(final int numberOfPlayers) {
-        if (numberOfPlayers < 1 || numberOfPlayers > 3) {
-            this.roundMaxPlayers = 3;
+    /**
+     * Whether the table could be changed to this many seats now - not mid-round, and not below who's already seated.
+     *
+     * @param seats the number of seats.
+     * @return true if {@link #setSeats(int)} would take it.
+     */
+    public boolean canSeat(final int seats) {
+        return seats >= 1 && seats <= MAX_SEATS && !this.isPlaying()
+                && this.connected.size() - (this.hasDealer() ? 1 : 0) <= seats;
+    }
+
+    /**
+     * Change how many players the table seats. Whoever is already seated keeps their order.
+     *
+     * @param seats the number of seats, from 1 to {@link #MAX_SEATS}.
+     */
+    public void setSeats(final int seats) {
+        if (seats < 1 || seats > MAX_SEATS) {
+            throw new IllegalArgumentException("Tables seat 1 to " + MAX_SEATS + " players, not " + seats);
+        }
+        if (!this.canSeat(seats)) {
+            throw new IllegalStateException("Can't seat " + this.seated + " players at " + seats + " seats right now.");
+        }
+        final Player dealer = this.getDealer();
+        final String dealerId = dealer == null ? null : this.ids[this.dealerSeat()];
+        final Player[] oldSeats = this.seats;
+        final String[] oldIds = this.ids;
+        this.seats = new Player[seats + 1];
+        this.ids = new String[seats + 1];
+        int next = 0;
+        for (int seat = 0; seat < oldSeats.length - 1; seat++) {
+            if (oldSeats[seat] != null) {
+                oldSeats[seat].setSeat(next);
+                this.seats[next] = oldSeats[seat];
+                this.ids[next++] = oldIds[seat];
+            }
         }
-        this.roundMaxPlayers = numberOfPlayers;
+        if (dealer != null) {
+            dealer.setSeat(this.dealerSeat());
+            this.seats[this.dealerSeat()] = dealer;
+            this.ids[this.dealerSeat()] = dealerId;
+        }
+        this.seatingChanged();
+        LOG.info("Table now seats {} players.", seats);
+    }
+
+    /**
+     * Open the lobby for the given number of real players - the rest of the seats go to AI.
+     *
+     * @param numberOfPlayers how many real players, or every seat if that's more than the table has.
+     */
+    public void openLobby(final int numberOfPlayers) {
+        this.roundMaxPlayers = numberOfPlayers < 0 || numberOfPlayers > this.getSeats()
+                ? this.getSeats()
+                : numberOfPlayers;
         this.gameState = State.WAITING_FOR_PLAYERS;
         LOG.info("Prepared new blackjack round for {} players.", numberOfPlayers);
     }
@@ -212,17 +343,17 @@ public class BlackJackGame {
      * @return true if the correct amount of players have joined.
      */
     public boolean readyToStart() {
-        final int numberRequired = this.roundMaxPlayers == -1 ? DEFAULT_MAX_PLAYERS : this.roundMaxPlayers;
-        LOG.info("Current number of players is {}. Required number is {}.", size(this.players), numberRequired);
-        return size(this.players) == numberRequired;
+        final int numberRequired = this.roundMaxPlayers == -1 ? this.getSeats() : this.roundMaxPlayers;
+        LOG.info("Current number of players is {}. Required number is {}.", this.seated, numberRequired);
+        return this.seated == numberRequired;
     }
 
     /**
      * Populate the remaining slots with AI.
      */
     public void registerAI() {
-        // EX: User enters '2' players --> this.roundmax = 2, DEFAULT = 3 ---> ADD 1 AI, need to register Dealer after.
-        final int numberOfAIToAdd = this.roundMaxPlayers == -1 ? 0 : DEFAULT_MAX_PLAYERS - this.roundMaxPlayers;
+        // EX: User enters '2' players --> this.roundmax = 2, seats = 3 ---> ADD 1 AI, need to register Dealer after.
+        final int numberOfAIToAdd = this.roundMaxPlayers == -1 ? 0 : this.getSeats() - this.roundMaxPlayers;
         for (int i = 0; i < numberOfAIToAdd; i++) {
             this.registerPlayer(null);
         }
@@ -236,26 +367,28 @@ public class BlackJackGame {
      * @return true if the player was added successfully.
      */
     public boolean registerPlayer(final WebSocketSession session) {
-        if (size(this.players) == DEFAULT_MAX_PLAYERS) {
+        final int seat = this.freeSeat();
+        if (seat == -1) {
             LOG.warn("Max players already reached!");
             return false;
         }
         if (session == null) {
             final String id = this.newAIID();
             LOG.info("Adding AI {} to the game.", id);
-            return this.players.putIfAbsent(id, new AIPlayer(null)) == null;
+            this.seat(seat, id, this.newAIPlayer());
         } else {
+            if (this.sessions.containsKey(session.getId())) {
+                return false;
+            }
             LOG.info("Adding {} to the game.", session.getId());
-
-            if (size(this.players) == 0) {
+            final Player player = new Player(session);
+            if (this.seated == 0) {
                 LOG.info("Setting first player as admin.");
-                final Player admin = new Player(session);
-                admin.setAdmin(true);
-                return this.players.putIfAbsent(session.getId(), admin) == null;
+                player.setAdmin(true);
             }
-
-            return this.players.putIfAbsent(session.getId(), new Player(session)) == null;
+            this.seat(seat, session.getId(), player);
         }
+        return true;
     }
 
     public String newAIID() {
@@ -269,14 +402,9 @@ public class BlackJackGame {
      * @param session the old player's sesion.
      */
     public boolean registerReplacementAI(final WebSocketSession session) {
-        final AIPlayer aiPlayer = new AIPlayer(null);
+        final AIPlayer aiPlayer = this.newAIPlayer();
         final Player old = this.getPlayerFor(session);
-        if (old.getHand().isSplitHand()) {
-            aiPlayer.getHand().splitHand();
-            old.getHand().getSplitCards().forEach(card -> aiPlayer.getHand().addSplitCard(card));
-        }
-        old.getHand().getCards().forEach(card -> aiPlayer.getHand().addCard(card));
-        aiPlayer.getHand().setHandStatus(old.getHand().getHandStatus());
+        aiPlayer.getHand().copyFrom(old.getHand());
         aiPlayer.setLastOption(old.getLastOption());
 
         //What do about the admin?
@@ -289,20 +417,38 @@ public class BlackJackGame {
             LOG.info("AI will process their turn with the rest.");
         }
 
-        this.players.remove(session.getId());
-        final String id = this.newAIID();
-        this.players.put(id, aiPlayer);
+        final int seat = old.getSeat();
+        this.unseat(old);
+        this.seat(seat, this.newAIID(), aiPlayer);
         LOG.info("Replaced old player with new AI - copied cards.");
         return true;
     }
 
+    /**
+     * Create an AI for the next free AI seat, playing by the strategy configured for that seat.
+     */
+    private AIPlayer newAIPlayer() {
+        int seat = 0;
+        for (final Player player : this.connected) {
+            if (player instanceof AIPlayer && !((AIPlayer) player).isDealer()) {
+                seat++;
+            }
+        }
+        final AIPlayer ai = new AIPlayer(null);
+        ai.setStrategy(this.blackJackService.getStrategyForSeat(seat));
+        return ai;
+    }
+
     /**
      * Register the dealer.
      */
     public void registerDealer() {
+        if (this.hasDealer()) {
+            return;
+        }
         final AIPlayer dealer = new AIPlayer(null);
         dealer.setDealer(true);
-        this.players.putIfAbsent("AI-DEALER", dealer);
+        this.seat(this.dealerSeat(), "AI-DEALER", dealer);
         LOG.info("Added AI-DEALER to the game.");
     }
 
@@ -313,7 +459,7 @@ public class BlackJackGame {
      * @return true if yes.
      */
     public boolean isPlayerRegistered(final WebSocketSession session) {
-        return this.players.get(session.getId()) != null;
+        return this.sessions.containsKey(session.getId());
     }
 
     /**
@@ -331,7 +477,11 @@ public class BlackJackGame {
                 return true;
             }
         } else {
-            return !this.isPlayerRegistered(session) || this.players.remove(session.getId()) != null;
+            final Player removed = this.sessions.get(session.getId());
+            if (removed != null) {
+                this.unseat(removed);
+            }
+            return true;
         }
     }
 
@@ -341,12 +491,14 @@ public class BlackJackGame {
      * @return true if we removed at least one.
      */
     public boolean deregisterAI() {
-        final List<String> aiIds = this.players.entrySet().stream()
-                .filter(entry -> !entry.getValue().isReal())
-                .map(Map.Entry::getKey)
-                .collect(toList());
-        aiIds.forEach(this.players::remove);
-        return size(aiIds) != 0;
+        boolean removed = false;
+        for (final Player player : this.connected) {
+            if (!player.isReal()) {
+                this.unseat(player);
+                removed = true;
+            }
+        }
+        return removed;
     }
 
     /**
@@ -372,6 +524,17 @@ public class BlackJackGame {
                 this.performOption(ai, splitOption, true);
             }
         }
+        this.finishIfDone(ai);
+    }
+
+    /**
+     * Take the player out of the turn order once their move leaves them done for the round.
+     */
+    private void finishIfDone(final Player player) {
+        final GameOption last = player.getLastOption();
+        if (last == GameOption.STAY || last == GameOption.BUST || last == GameOption.SEVEN_CARD_CHARLIE) {
+            this.turnHandler.finished(player);
+        }
     }
 
     /**
@@ -382,6 +545,7 @@ public class BlackJackGame {
      */
     public void performOption(@NotNull final Player player, @NotNull final GameOption option) {
         this.performOption(player, option, player.getHand().isSplitHand());
+        this.finishIfDone(player);
     }
 
     public void performOption(@NotNull final Player player, @NotNull final GameOption option, final boolean splitHand) {
@@ -394,7 +558,7 @@ public class BlackJackGame {
                 player.getHand().splitHand();
                 break;
             case HIT:
-                final Card drawn = this.deck.draw();
+                final Card drawn = this.shoe.draw();
                 LOG.info("Drew {}.", drawn);
                 if (drawn != null) {
                     if (splitHand) {
@@ -402,6 +566,7 @@ public class BlackJackGame {
                     } else {
                         player.getHand().addCard(drawn);
                     }
+                    this.journalCard(JournalEvent.DRAW, player, drawn, splitHand ? RoundJournal.SPLIT : 0);
 
                     this.swapAceValuesIfBenefit(player);
 
@@ -416,14 +581,18 @@ public class BlackJackGame {
                 throw new IllegalArgumentException("No valid argument passed to execute option.");
         }
         player.setLastOption(option);
+        this.version++;
 
-        if (player.getHand().getHandValue() > 21) {
+        if (player.getHand().isBust()) {
             player.setLastOption(GameOption.BUST);
             LOG.info("{} busted!", this.getSessionIdFor(player));
-            this.revealCards(player);
         } else if (player.getHand().getHandValue() == 21 && player.getHand().getCards().size() == 7) {
             player.setLastOption(GameOption.SEVEN_CARD_CHARLIE);
             LOG.info("{} got a seven card charlie!", this.getSessionIdFor(player));
+        }
+        this.journalOption(player, splitHand);
+        if (player.getLastOption() != option) {
+            // They busted or got a seven card charlie - their hand is shown.
             this.revealCards(player);
         }
 
@@ -502,6 +671,7 @@ public class BlackJackGame {
             // Everyone bust and lost...
             this.getConnectedPlayers().forEach(player -> player.getHand().setHandStatus(HandStatus.LOSER));
         }
+        this.journalResolutions();
         LOG.info("Set hand resolutions.");
     }
 
@@ -515,11 +685,46 @@ public class BlackJackGame {
                 .filter(other -> !player.equals(other))
                 .forEach(other -> other.getHand().setHandStatus(HandStatus.LOSER));
         player.getHand().setHandStatus(HandStatus.SEVEN_CARD_CHARLIE);
+        this.journalResolutions();
         LOG.info("Set hand resolutions for seven card charlie.");
     }
 
     public void revealCards(final Player player) {
-        player.getHand().getCards().forEach(card -> card.setHidden(false));
+        player.getHand().reveal();
+        this.journal.reveal(this.journalTable, this.round, player.getSeat(), player.getHand().getHandValue());
+        this.version++;
+    }
+
+    // Journalling is kept out of line so the game's own methods stay small enough for the JIT to inline.
+    private void journalCard(final JournalEvent event, final Player player, final Card card, final int flags) {
+        this.journal.card(event, this.journalTable, this.round, player.getSeat(), card, journalFlags(player) | flags);
+    }
+
+    private void journalOption(final Player player, final boolean splitHand) {
+        this.journal.option(this.journalTable,
+                this.round,
+                player.getSeat(),
+                player.getLastOption(),
+                splitHand ? player.getHand().getSplitHandValue() : player.getHand().getHandValue());
+    }
+
+    private void journalResolutions() {
+        for (final Player player : this.seats) {
+            if (player != null) {
+                this.journal.resolution(this.journalTable,
+                        this.round,
+                        player.getSeat(),
+                        player.getHand().getHandStatus(),
+                        player.getHand().getHandValue());
+            }
+        }
+    }
+
+    private static int journalFlags(final Player player) {
+        if (!(player instanceof AIPlayer)) {
+            return 0;
+        }
+        return ((AIPlayer) player).isDealer() ? RoundJournal.AI | RoundJournal.DEALER : RoundJournal.AI;
     }
 
     /**
@@ -529,65 +734,60 @@ public class BlackJackGame {
      * @return the list of players, or empty.
      */
     public List<Player> getAllPlayersExceptFor(final Player exclude) {
-        return isNotEmpty(this.players) ? this.players.values()
-                .stream()
-                .filter(player -> !player.equals(exclude))
-                .collect(
-                        Collectors.toList()) : Collections.emptyList();
+        final List<Player> others = new ArrayList<>(this.connected.size());
+        for (final Player player : this.connected) {
+            if (player != exclude) {
+                others.add(player);
+            }
+        }
+        return others;
     }
 
     /**
-     * Get the player sessions connected to this game including AI.
+     * Get the sessions of the real players connected to this game.
      *
      * @return the sessions.
      */
     public Collection<WebSocketSession> getConnectedPlayerSessions() {
-        return this.players.values().stream()
+        return this.connectedReal.stream()
                 .map(Player::getSession)
                 .collect(toList());
     }
 
     /**
-     * Get the player sessions connected to this game including AI.
+     * Get the players connected to this game including AI, in seat order.
      *
-     * @return the sessions.
+     * @return the players - don't change it.
      */
     public List<Player> getConnectedPlayers() {
-        return this.players.values().stream()
-                .collect(toList());
+        return this.connected;
     }
 
     /**
      * Get the real players that are connected.
      *
-     * @return the real players.
+     * @return the real players - don't change it.
      */
     public Collection<Player> getConnectedRealPlayers() {
-        return this.players.values().stream()
-                .filter(Player::isReal)
-                .collect(toList());
+        return this.connectedReal;
     }
 
     /**
      * Get the admin from the current list of players.
      *
-     * @return the admin player.
+     * @return the admin player, or null if nobody has joined.
      */
     public Player getAdmin() {
-        return this.players.values().stream()
-                .filter(Player::isAdmin)
-                .collect(uniqueResult());
+        return this.admin;
     }
 
     /**
      * Get the dealer from the current list of players.
      *
-     * @return the dealer AI.
+     * @return the dealer AI, or null if they haven't been seated.
      */
     public Player getDealer() {
-        return this.players.values().stream()
-                .filter(player -> !player.isReal() && ((AIPlayer) player).isDealer())
-                .collect(uniqueResult());
+        return this.seats[this.dealerSeat()];
     }
 
     /**
@@ -597,12 +797,8 @@ public class BlackJackGame {
      * @return the string id.
      */
     public String getSessionIdFor(final Player player) {
-        for (final Map.Entry<String, Player> entry : this.players.entrySet()) {
-            if (entry.getValue().equals(player)) {
-                return entry.getKey();
-            }
-        }
-        return "Invalid UID";
+        final int seat = player.getSeat();
+        return seat >= 0 && seat < this.seats.length && this.seats[seat] == player ? this.ids[seat] : "Invalid UID";
     }
 
     /**
@@ -612,7 +808,20 @@ public class BlackJackGame {
      * @return the player.
      */
     public Player getPlayerFor(final WebSocketSession session) {
-        return this.players.get(session.getId());
+        return this.sessions.get(session.getId());
+    }
+
+    /**
+     * Whether the dealer (and so any AI) has been seated - the round can be started from then on.
+     *
+     * @return true if there is a dealer.
+     */
+    public boolean hasDealer() {
+        return this.getDealer() != null;
+    }
+
+    public boolean isWaitingForAdmin() {
+        return this.gameState == State.WAITING_FOR_ADMIN;
     }
 
     public boolean isWaitingForPlayers() {
@@ -639,37 +848,81 @@ public class BlackJackGame {
         this.gameState = gameState;
     }
 
-    private void swapAceValuesIfBenefit(final Player player) {
-        if (containsAny(player.getHand().getCards(), Arrays.asList(Rank.ACE_HIGH, Rank.ACE_LOW))) {
-            return;
+    private int dealerSeat() {
+        return this.seats.length - 1;
+    }
+
+    /**
+     * The first empty player seat, or -1 if they're all taken.
+     */
+    private int freeSeat() {
+        for (int seat = 0; seat < this.dealerSeat(); seat++) {
+            if (this.seats[seat] == null) {
+                return seat;
+            }
         }
+        return -1;
+    }
 
-        if (player.getHand().getHandValue() > 21) {
-            LOG.info("Player bust - checking to see if we can replace ACE.");
-            this.checkAndReplace(player);
-        } else if (player.getHand().getHandValue() >= 18 && player.getHand().getHandValue() <= 20) {
-            LOG.info("Player between 18 and 20 - checking to see if we can replace ACE.");
-            this.checkAndReplace(player);
+    private void seat(final int seat, final String id, final Player player) {
+        player.setSeat(seat);
+        this.seats[seat] = player;
+        this.ids[seat] = id;
+        this.seated++;
+        if (player.isReal()) {
+            this.sessions.put(id, player);
+        }
+        if (player.isAdmin()) {
+            this.admin = player;
         }
+        this.seatingChanged();
+    }
 
+    private void unseat(final Player player) {
+        final int seat = player.getSeat();
+        this.seats[seat] = null;
+        this.ids[seat] = null;
+        this.seated--;
+        if (player.isReal()) {
+            this.sessions.remove(player.getSession().getId());
+            this.views.remove(player);
+        }
+        if (player == this.admin) {
+            this.admin = null;
+        }
+        this.seatingChanged();
     }
 
-    private void checkAndReplace(final Player player) {
-        boolean doReplace = false;
-        int indexOf = -1;
-        for (final Card card : player.getHand().getCards()) {
-            if (card.getRank() == Rank.ACE_HIGH) {
-                LOG.info("Player has an ACE_HIGH - replacing with value 1.");
-                indexOf = player.getHand().getCards().indexOf(card);
-                doReplace = true;
-                break;
+    private void seatingChanged() {
+        final List<Player> connected = new ArrayList<>(this.seated);
+        final List<Player> connectedReal = new ArrayList<>(this.seated);
+        for (final Player player : this.seats) {
+            if (player != null) {
+                connected.add(player);
+                if (player.isReal()) {
+                    connectedReal.add(player);
+                }
             }
         }
-        if (doReplace) {
-            final Card card = player.getHand().getCards().remove(indexOf);
-            player.getHand().getCards().add(indexOf, new Card(Rank.ACE_LOW, card.getSuit(), card.isHidden()));
-            LOG.info("Replaced {} with {}.", card, player.getHand().getCards().get(indexOf));
+        this.connected = Collections.unmodifiableList(connected);
+        this.connectedReal = Collections.unmodifiableList(connectedReal);
+        this.version++;
+    }
+
+    private void swapAceValuesIfBenefit(final Player player) {
+        final Hand hand = player.getHand();
+        if (!hand.isSoft()) {
+            return;
+        }
+
+        if (hand.getHandValue() > 21) {
+            LOG.info("Player bust - lowering an ACE to value 1.");
+            hand.lowerAce();
+        } else if (hand.getHandValue() >= 18 && hand.getHandValue() <= 20) {
+            LOG.info("Player between 18 and 20 - lowering an ACE to value 1.");
+            hand.lowerAce();
         }
+
     }
 
     public boolean isWaitingOnReal() {
@@ -3,18 +3,16 @@ package ca.carleton.blackjack.game;
 import ca.carleton.blackjack.game.entity.AIPlayer;
 import ca.carleton.blackjack.game.entity.Player;
 import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
 import ca.carleton.blackjack.game.entity.card.Rank;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static ca.carleton.blackjack.game.BlackJackGame.uniqueResult;
-import static java.util.Arrays.asList;
-import static java.util.stream.Collectors.toList;
-import static org.springframework.util.CollectionUtils.containsAny;
 
 /**
  * Service class implementing the logic of our program.
@@ -26,6 +24,26 @@ public class BlackJackService {
 
     private static final Logger LOG = LoggerFactory.getLogger(BlackJackService.class);
 
+    /**
+     * Which strategy each AI seat plays by - "house" for our own rules or the name of a {@link StrategyTable}.
+     */
+    @Value("${blackjack.ai.strategies:house}")
+    private String[] aiStrategies;
+
+    private StrategyTable[] seatStrategies;
+
+    @PostConstruct
+    public void init() {
+        if (this.aiStrategies.length == 0) {
+            this.aiStrategies = new String[]{"house"};
+        }
+        this.seatStrategies = new StrategyTable[this.aiStrategies.length];
+        for (int seat = 0; seat < this.aiStrategies.length; seat++) {
+            this.seatStrategies[seat] = StrategyTable.forName(this.aiStrategies[seat].trim());
+        }
+        LOG.info("AI seats will play by {}.", Arrays.toString(this.aiStrategies));
+    }
+
     /**
      * The action the dealer will take according to our game rules.
      *
@@ -37,10 +55,7 @@ public class BlackJackService {
         if (handValue < 17) {
             return GameOption.HIT;
         }
-        final List<Card> cards = dealer.getHand().getCards();
-        final List<Rank> cardRanks = cards.stream().map(Card::getRank).collect(toList());
-
-        if (handValue == 17 && containsAny(cardRanks, asList(Rank.ACE_HIGH, Rank.ACE_LOW))) {
+        if (handValue == 17 && dealer.getHand().getAceCount() > 0) {
             return GameOption.HIT;
         } else if (handValue == 17) {
             return GameOption.STAY;
@@ -50,76 +65,116 @@ public class BlackJackService {
     }
 
     /**
-     * The action the AI will take according to our game rules.
+     * The strategy the AI in the given seat plays by. Seats past the end of the configured list use the last entry.
+     *
+     * @param seat the AI's seat, counting from 0 and not counting the dealer.
+     * @return the table, or null for the house rules.
+     */
+    public StrategyTable getStrategyForSeat(final int seat) {
+        return this.seatStrategies[Math.min(seat, this.seatStrategies.length - 1)];
+    }
+
+    /**
+     * The action the AI will take. AI with a strategy table look their move up against the dealer's face up card,
+     * everyone else plays by the house rules.
      *
      * @param player       the AI.
      * @param otherPlayers the other players.
      * @return the option they will use for their next move.
      */
     public GameOption getAIOption(final AIPlayer player, final List<Player> otherPlayers) {
+        final StrategyTable strategy = player.getStrategy();
+        if (strategy != null) {
+            final Card upcard = findDealerUpcard(otherPlayers);
+            if (upcard != null) {
+                return strategy.decide(player.getHand(), upcard);
+            }
+            LOG.warn("No dealer card to play {} against - falling back to the house rules.", strategy);
+        }
+        return this.getHouseOption(player, otherPlayers);
+    }
 
-        if (this.shouldAISplit(player.getHand().getCards()) && !player.getHand().isSplitHand()) {
+    /**
+     * The action the AI will take according to our game rules.
+     */
+    private GameOption getHouseOption(final AIPlayer player, final List<Player> otherPlayers) {
+        final Hand hand = player.getHand();
+        if (this.shouldAISplit(hand) && !hand.isSplitHand()) {
             return GameOption.SPLIT;
         }
 
-        final int handValue = (int) player.getHand().getHandValue();
+        final int handValue = (int) hand.getHandValue();
         if (handValue == 21) {
-            LOG.info("Staying because AI has 21");
+            LOG.debug("Staying because AI has 21");
             return GameOption.STAY;
         }
 
         for (final Player other : otherPlayers) {
-            if (other.getLastOption() == GameOption.STAY) {
-                if (other.getHand().getCards().size() == 2) {
-                    // should only have 1 visible if their two initial cards.
-                    final Card visibleCard = other.getHand()
-                            .getCards()
-                            .stream()
-                            .filter(card -> !card.isHidden())
-                            .collect(uniqueResult());
-                    if (visibleCard.getRank().getValue() == 10
-                            || visibleCard.getRank() == Rank.ACE_LOW
-                            || visibleCard.getRank() == Rank.ACE_HIGH) {
-                        LOG.info("Hitting because AI saw that another player stayed with 2 cards (10 visible).");
-                        return GameOption.HIT;
-                    }
+            if (other.getLastOption() == GameOption.STAY && other.getHand().size() == 2) {
+                // should only have 1 visible if their two initial cards.
+                final Card visibleCard = onlyVisibleCard(other.getHand());
+                if (visibleCard.getRank().getValue() == 10
+                        || visibleCard.getRank() == Rank.ACE_LOW
+                        || visibleCard.getRank() == Rank.ACE_HIGH) {
+                    LOG.debug("Hitting because AI saw that another player stayed with 2 cards (10 visible).");
+                    return GameOption.HIT;
                 }
             }
         }
 
-        final List<Player> othersThatAreNotBust = otherPlayers.stream()
-                .filter(otherGuy -> otherGuy.getLastOption() == null || (otherGuy.getLastOption() != null && otherGuy.getLastOption() != GameOption.BUST))
-                .collect(Collectors.toList());
-
         if (handValue >= 18 && handValue <= 20) {
-            for (final Player other : othersThatAreNotBust) {
-                final List<Card> visibleCards = other.getHand()
-                        .getCards()
-                        .stream()
-                        .filter(card -> !card.isHidden())
-                        .collect(Collectors.toList());
-                final int valueOfVisibleCards = (int) (long) visibleCards.stream()
-                        .mapToInt(card -> card.getRank().getValue())
-                        .sum();
-                LOG.info("Value of visible cards for {} is {}", other, valueOfVisibleCards);
-                if (valueOfVisibleCards > (handValue - 10)) {
-                    LOG.info("Hitting because value of visible cards > (hand value - 10). Checked against {}", other);
+            for (final Player other : otherPlayers) {
+                if (other.getLastOption() == GameOption.BUST) {
+                    continue;
+                }
+                if (other.getHand().getVisibleHandValue() > (handValue - 10)) {
+                    LOG.debug("Hitting because value of visible cards > (hand value - 10). Checked against {}", other);
                     return GameOption.HIT;
                 }
             }
-            LOG.info("Staying because value is between 18 and 20)");
+            LOG.debug("Staying because value is between 18 and 20)");
             return GameOption.STAY;
         }
 
-        LOG.info("Hitting because ran out of options.");
+        LOG.debug("Hitting because ran out of options.");
         return GameOption.HIT;
     }
 
     /**
      * We only split if the initial cards are the same rank.
      */
-    private boolean shouldAISplit(final List<Card> cards) {
-        return cards.size() == 2 && cards.get(0).getRank() == cards.get(1).getRank();
+    private boolean shouldAISplit(final Hand hand) {
+        return hand.size() == 2 && hand.getCards().get(0).getRank() == hand.getCards().get(1).getRank();
+    }
+
+    private static Card onlyVisibleCard(final Hand hand) {
+        Card visible = null;
+        for (int slot = 0; slot < hand.size(); slot++) {
+            if (!hand.isHidden(slot)) {
+                if (visible != null) {
+                    throw new IllegalStateException();
+                }
+                visible = hand.getCards().get(slot);
+            }
+        }
+        if (visible == null) {
+            throw new IllegalStateException();
+        }
+        return visible;
+    }
+
+    private static Card findDealerUpcard(final List<Player> players) {
+        for (final Player player : players) {
+            if (player instanceof AIPlayer && ((AIPlayer) player).isDealer()) {
+                final Hand hand = player.getHand();
+                for (int slot = 0; slot < hand.size(); slot++) {
+                    if (!hand.isHidden(slot)) {
+                        return hand.getCards().get(slot);
+                    }
+                }
+            }
+        }
+        return null;
     }
 
 }
@@ -0,0 +1,672 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.message.GameMessage;
+import ca.carleton.blackjack.session.HashedWheelTimer;
+import ca.carleton.blackjack.session.OutboundWriter;
+import ca.carleton.blackjack.session.SessionHandler;
+import org.apache.commons.lang3.NotImplementedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+import static ca.carleton.blackjack.game.message.MessageUtil.gameMessage;
+import static org.apache.commons.collections.CollectionUtils.size;
+
+/**
+ * A single blackjack table - owns its own game, turn order and shoe, and contains the controls that used to live
+ * in the socket handler.
+ * <p/>
+ * A table is an actor: every method that touches the game must be run through {@link #execute(Runnable)}, which
+ * queues it on the table's mailbox. Nothing here is locked because only one task per table ever runs at a time.
+ * <p/>
+ * AI and dealer turns are each queued as their own task, as is settling the round, so a long run of them never holds a
+ * worker - other tables (and this table's players) get a look in between, and each move goes out as soon as it's made.
+ * <p/>
+ * A real player who doesn't move in time STAYS, and a table where nobody has played for a long time is closed.
+ * <p/>
+ * Created by Mike on 10/6/2015.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class BlackJackTable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BlackJackTable.class);
+
+    private String id;
+
+    @Autowired
+    private BlackJackGame game;
+
+    @Autowired
+    private SessionHandler sessionHandler;
+
+    @Autowired
+    private TableWorkerPool workerPool;
+
+    @Autowired
+    private OutboundWriter outboundWriter;
+
+    @Autowired
+    private HashedWheelTimer timer;
+
+    @Value("${blackjack.turn.timeout.seconds:60}")
+    private long turnTimeoutSeconds;
+
+    @Value("${blackjack.table.idle.seconds:3600}")
+    private long idleSeconds;
+
+    private Executor mailbox;
+
+    /**
+     * Everything the running task has sent - flushed as one frame per session when it finishes.
+     */
+    private OutboundBatch outbound;
+
+    /**
+     * Sessions routed to this table - owned by the registry.
+     */
+    private final AtomicInteger boundSessions = new AtomicInteger();
+
+    /**
+     * Whether or not we're accepting connections.
+     */
+    private boolean acceptingConnections;
+
+    /**
+     * The real player we've sent YOUR_TURN and are waiting on, if any.
+     */
+    private Player turn;
+
+    /**
+     * Counts every YOUR_TURN sent, so a turn's timer can tell whether it's still that turn.
+     */
+    private long turnCount;
+
+    private HashedWheelTimer.Timeout turnTimeout;
+
+    /**
+     * The next idle check. Cancelled from the registry's thread once the table is removed, hence volatile.
+     */
+    private volatile HashedWheelTimer.Timeout idleTimeout;
+
+    private volatile boolean removed;
+
+    /**
+     * When someone last joined or made a move.
+     */
+    private long lastMove = System.nanoTime();
+
+    /**
+     * Bumped whenever a round ends or is abandoned, so AI turns queued for it know not to run.
+     */
+    private long round;
+
+    @PostConstruct
+    public void init() {
+        this.acceptingConnections = true;
+        this.mailbox = this.workerPool.newMailbox();
+        this.outbound = new OutboundBatch(this.outboundWriter);
+        if (this.idleSeconds > 0) {
+            this.scheduleIdleCheck(TimeUnit.SECONDS.toNanos(this.idleSeconds));
+        }
+    }
+
+    /**
+     * Queue a task to run on this table's mailbox. Messages the task sends go out together once it is done.
+     *
+     * @param task the task.
+     */
+    public void execute(final Runnable task) {
+        this.mailbox.execute(() -> {
+            try {
+                task.run();
+            } finally {
+                this.outbound.flush();
+            }
+        });
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+        LOG.info("Table {} is number {} in the round journal.", id, this.game.getJournalTable());
+    }
+
+    AtomicInteger getBoundSessions() {
+        return this.boundSessions;
+    }
+
+    /**
+     * Seat the given session at this table.
+     *
+     * @param session the session.
+     */
+    public void join(final WebSocketSession session) {
+        LOG.info("{} is joining table {}.", session.getId(), this.id);
+        this.lastMove = System.nanoTime();
+
+        // For first one - disable after they join
+        if (this.acceptingConnections && size(this.game.getConnectedPlayers()) == 0) {
+            this.acceptingConnections = false;
+        } else if (!this.acceptingConnections) {
+            LOG.warn("Warning: Admin isn't accepting connections yet.");
+            this.sendMessage(session, gameMessage(Message.NOT_ACCEPTING));
+            this.sessionHandler.registerSessionForDisconnect(session);
+            // Check if we're in 0 state and need to re-open
+            if (size(this.game.getConnectedPlayers()) == 0) {
+                this.acceptingConnections = true;
+            }
+            return;
+        }
+
+        if (this.game.registerPlayer(session)) {
+            this.sendMessage(session, gameMessage(Message.PLAYER_CONNECTED, session.getId()));
+            this.broadCastMessage(session, gameMessage(Message.OTHER_PLAYER_CONNECTED, session.getId()));
+
+            if (this.game.getPlayerFor(session).isAdmin()) {
+                LOG.info("Sending admin message to player.");
+                this.sendMessage(session, gameMessage(Message.ADMIN_SET));
+            }
+
+            if (this.game.readyToStart()) {
+                this.doReadyToStart();
+            }
+
+        } else {
+            this.sendMessage(session, gameMessage(Message.NOT_ACCEPTING));
+            this.sessionHandler.registerSessionForDisconnect(session);
+            this.closeSession(session, CloseStatus.NOT_ACCEPTABLE);
+        }
+    }
+
+    /**
+     * Called after a session seated at this table is closed via session.close()
+     *
+     * @param session the session.
+     * @param status  the close status.
+     */
+    public void leave(final WebSocketSession session, final CloseStatus status) {
+        LOG.info("Closing session for {} at table {} with status {}.", session.getId(), this.id, status);
+
+        if (this.game.getPlayerFor(session) != null) {
+            if (this.game.getPlayerFor(session).isAdmin()) {
+                this.closeBecauseAdminLeft();
+                return;
+            }
+        }
+
+        if (this.game.deregisterPlayer(session)) {
+            if (this.game.isPlaying()) {
+                this.broadCastMessage(session, gameMessage(Message.OTHER_PLAYER_DISCONNECTED, session.getId()));
+            }
+            LOG.info("Successfully deregistered session {}.", session.getId());
+        } else {
+            LOG.info("Disabling all accounts because the admin left.");
+            this.closeBecauseAdminLeft();
+            return;
+        }
+
+        // Need to deregister any existing AI if we're in a waiting state
+        if (this.game.isWaitingForPlayers()) {
+            if (this.game.deregisterAI()) {
+                LOG.info("Deregistered existing AI.");
+            }
+        }
+    }
+
+    /**
+     * Handle a command sent by a session seated at this table. Commands that aren't allowed right now - from someone
+     * who isn't the admin, or whose turn it isn't - are dropped here, before they reach the game.
+     *
+     * @param session the session.
+     * @param command the command.
+     */
+    public void handleMessage(final WebSocketSession session, final InboundCommand command) {
+        final Player sender = this.game.getPlayerFor(session);
+        if (sender == null || !this.isAllowed(sender, command)) {
+            LOG.warn("Rejected {} from {} - not allowed right now.", command, session.getId());
+            return;
+        }
+        if (command.getType() != InboundCommand.Type.RESYNC && command.getType() != InboundCommand.Type.UPDATES) {
+            this.lastMove = System.nanoTime();
+        }
+        switch (command.getType()) {
+            case ACCEPT:
+                // The command only knows the most any table seats - check this one before touching the game.
+                final int seats = command.getSeats() != 0 ? command.getSeats() : this.game.getSeats();
+                if (command.getPlayers() > seats || !this.game.canSeat(seats)) {
+                    LOG.warn("Can't open the lobby for {} players at {} seats.", command.getPlayers(), seats);
+                    this.sendMessage(session, gameMessage(Message.CANT_SEAT, command.getPlayers(), seats));
+                    break;
+                }
+                LOG.info("Now accepting connections.");
+                this.acceptingConnections = true;
+                if (command.getSeats() != 0) {
+                    this.game.setSeats(command.getSeats());
+                }
+                this.game.openLobby(command.getPlayers());
+
+                // Case where we're playing with 1 person - need to start right away.
+                if (this.game.readyToStart()) {
+                    this.doReadyToStart();
+                }
+                break;
+            case START_GAME:
+                LOG.info("Starting the game.");
+                this.broadCastMessageFromServer(gameMessage(Message.STARTING_GAME));
+                this.game.dealInitialHands();
+                // Send each real player their cards.
+                this.updateCards();
+                // Send the first message to the player. Order will be a random of the real players, followed by AI, and then dealer.
+                final Player nextPlayer = this.game.getNextPlayer();
+                if (nextPlayer.isReal()) {
+                    this.sendYourTurn(nextPlayer);
+                } else {
+                    throw new NotImplementedException("There should always be at least 1 human player to send to first.");
+                }
+                break;
+            case GAME_OPTION:
+                LOG.info("{} has decided to {}.", session.getId(), command.getOption());
+                this.playOption(sender, command.getOption());
+                break;
+            case RESYNC:
+                // The client lost track of the cards - send them everything again.
+                this.game.resync(sender);
+                this.updateCards();
+                break;
+            case LEAVING:
+                // The person that just went left, so we need to force to next.
+                this.game.setWaitingOnReal(false);
+                this.endTurn();
+                this.doNextTurn();
+                break;
+            case UPDATES:
+                LOG.info("{} wants {} card updates.",
+                        session.getId(),
+                        command.isLatestOnly() ? "only the latest" : "all");
+                this.outboundWriter.setLatestOnly(session, command.isLatestOnly());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Whether the player may send the command at this point in the game.
+     */
+    private boolean isAllowed(final Player sender, final InboundCommand command) {
+        switch (command.getType()) {
+            case ACCEPT:
+                return sender.isAdmin() && this.game.isWaitingForAdmin();
+            case START_GAME:
+                return sender.isAdmin() && !this.game.isPlaying() && this.game.hasDealer();
+            case GAME_OPTION:
+            case LEAVING:
+                return sender == this.turn;
+            case RESYNC:
+                return this.game.isPlaying();
+            case UPDATES:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Play a real player's move, then move on to whoever is next.
+     *
+     * @param sender the player whose turn it is.
+     * @param option what they do.
+     */
+    private void playOption(final Player sender, final GameOption option) {
+        final WebSocketSession session = sender.getSession();
+        this.game.setWaitingOnReal(false);
+        this.endTurn();
+        this.game.performOption(sender, option);
+        // Send state update if necessary
+        if (sender.getLastOption() == GameOption.BUST) {
+            this.sendMessage(session, gameMessage(Message.BUST));
+        } else if (sender.getLastOption() == GameOption.SEVEN_CARD_CHARLIE) {
+            this.sendMessage(session, gameMessage(Message.SEVEN_CARD_CHARLIE));
+            this.resolveSevenCardCharlie(sender);
+            return;
+        }
+        // Send to other than the player what their move was.
+        this.broadCastMessage(session, gameMessage(Message.MOVE_MADE, session.getId(), option));
+        this.updateCards();
+        this.doNextTurn();
+    }
+
+    /**
+     * Stop waiting on the current player, if we were.
+     */
+    private void endTurn() {
+        this.turn = null;
+        if (this.turnTimeout != null) {
+            this.turnTimeout.cancel();
+            this.turnTimeout = null;
+        }
+    }
+
+    /**
+     * The player's time ran out - they STAY. If they've already gone, their seat is AI now and we just move on.
+     *
+     * @param player    the player.
+     * @param turnCount which turn it was.
+     */
+    private void turnTimedOut(final Player player, final long turnCount) {
+        if (player != this.turn || turnCount != this.turnCount) {
+            return;
+        }
+        this.turnTimeout = null;
+        if (this.game.getPlayerFor(player.getSession()) != player) {
+            LOG.info("{} left during their turn - moving on.", player.getSession().getId());
+            this.game.setWaitingOnReal(false);
+            this.endTurn();
+            this.doNextTurn();
+            return;
+        }
+        LOG.info("{} took too long - they STAY.", player.getSession().getId());
+        this.sendMessage(player.getSession(), gameMessage(Message.TURN_TIMED_OUT));
+        this.playOption(player, GameOption.STAY);
+    }
+
+    private void scheduleIdleCheck(final long delayNanos) {
+        final HashedWheelTimer.Timeout timeout = this.timer.schedule(() -> this.execute(this::checkIdle),
+                delayNanos,
+                TimeUnit.NANOSECONDS);
+        this.idleTimeout = timeout;
+        // Removed while we were scheduling it - see removed().
+        if (this.removed) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * Called by the registry once the table is torn down. Its timers are cancelled so the timer wheel doesn't keep
+     * the table, its game and sessions alive until they would have gone off.
+     */
+    public void removed() {
+        this.removed = true;
+        final HashedWheelTimer.Timeout timeout = this.idleTimeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        this.execute(this::endTurn);
+    }
+
+    /**
+     * Close the table if nobody has played for too long, otherwise check again when they could have.
+     */
+    private void checkIdle() {
+        if (this.removed || this.boundSessions.get() == 0) {
+            // Torn down already.
+            return;
+        }
+        final long limit = TimeUnit.SECONDS.toNanos(this.idleSeconds);
+        final long idle = System.nanoTime() - this.lastMove;
+        if (idle < limit) {
+            this.scheduleIdleCheck(limit - idle);
+            return;
+        }
+        LOG.info("Closing table {} - nobody has played for {} seconds.", this.id, TimeUnit.NANOSECONDS.toSeconds(idle));
+        this.closeTable(gameMessage(Message.TABLE_CLOSED));
+        this.lastMove = System.nanoTime();
+        this.scheduleIdleCheck(limit);
+    }
+
+    private void doNextTurn() {
+        final Player next = this.game.getNextPlayer();
+        if (next == null) {
+            this.queueResolveRound();
+        } else if (next.isReal()) {
+            this.sendYourTurn(next);
+        } else {
+            LOG.info("All real players have gone. Processing AI.");
+            this.broadCastMessageFromServer(gameMessage(Message.PROCESSING_AI));
+            this.queueAITurn(next);
+        }
+    }
+
+    /**
+     * Queue the given AI player's turn as its own task. It's dropped if the round is over by the time it runs.
+     *
+     * @param player the AI player.
+     */
+    private void queueAITurn(final Player player) {
+        final long queuedRound = this.round;
+        this.execute(() -> {
+            if (queuedRound == this.round) {
+                this.processAI(player);
+            }
+        });
+    }
+
+    /**
+     * Settle the round as its own task, once the last AI turn has gone out.
+     */
+    private void queueResolveRound() {
+        final long queuedRound = this.round;
+        this.execute(() -> {
+            if (queuedRound == this.round) {
+                LOG.info("No players can make a turn! Set winning statuses and send to clients.");
+                this.game.resolveRound();
+                this.sendResults();
+                this.resetGame();
+            }
+        });
+    }
+
+    private void closeBecauseAdminLeft() {
+        LOG.info("Disabling all accounts because the admin left.");
+        this.closeTable(gameMessage(Message.ALL_QUIT));
+    }
+
+    /**
+     * Tell everyone why, disconnect them and start the table over.
+     *
+     * @param reason the message to send.
+     */
+    private void closeTable(final GameMessage reason) {
+        this.broadCastMessageFromServer(reason);
+        this.game.getConnectedPlayerSessions()
+                .forEach(toClose -> this.sessionHandler.registerSessionForDisconnect(toClose));
+        this.endTurn();
+        this.round++;
+        this.game.init();
+        this.acceptingConnections = true;
+    }
+
+    /**
+     * Reset the state of the game.
+     */
+    private void resetGame() {
+        final Player admin = this.game.getAdmin();
+        this.game.getConnectedRealPlayers().stream()
+                .filter(player -> !player.equals(admin))
+                .forEach(player -> this.sendMessage(player.getSession(), gameMessage(Message.RESET)));
+        this.sendMessage(admin.getSession(), gameMessage(Message.RESET_ADMIN));
+        this.game.resetRound();
+        this.round++;
+        this.acceptingConnections = true;
+        LOG.info("Reset round - waiting for admin message.");
+    }
+
+    /**
+     * Play one AI player's turn, then queue whatever comes next.
+     *
+     * @param next the AI player.
+     */
+    private void processAI(final Player next) {
+        LOG.info("Processing for {}", this.game.getSessionIdFor(next));
+        this.game.doAITurn((AIPlayer) next);
+        this.broadCastMessageFromServer(gameMessage(Message.MOVE_MADE,
+                this.game.getSessionIdFor(next),
+                next.getLastOption()));
+        if (next.getLastOption() == GameOption.SEVEN_CARD_CHARLIE) {
+            this.resolveSevenCardCharlie(next);
+            return;
+        }
+        this.updateCards();
+        if (this.game.isNextPlayerAI()) {
+            this.queueAITurn(this.game.getNextPlayer());
+            return;
+        }
+        LOG.info("All AI have done their turn.");
+        if (this.game.isGameResolved()) {
+            this.queueResolveRound();
+        } else {
+            this.doNextTurn();
+        }
+    }
+
+    private void resolveSevenCardCharlie(final Player winner) {
+        if (this.game.isGameResolved()) {
+            this.game.resolveRoundSevenCardCharlie(winner);
+            this.sendResults();
+            this.resetGame();
+        }
+    }
+
+    private void sendResults() {
+        // Send cards again but show them all just in case.
+        for (final Player player : this.game.getConnectedPlayers()) {
+            this.game.revealCards(player);
+        }
+        this.updateCards();
+        for (final Player result : this.game.getConnectedPlayers()) {
+            switch (result.getHand().getHandStatus()) {
+                case SEVEN_CARD_CHARLIE:
+                    this.broadCastMessageFromServer(gameMessage(Message.CHARLIE,
+                            this.game.getSessionIdFor(result)));
+                    break;
+                case WINNER:
+                    this.broadCastMessageFromServer(gameMessage(Message.WINNER,
+                            this.game.getSessionIdFor(result),
+                            result.getHand().getHandValue()));
+                    break;
+                case LOSER:
+                    this.broadCastMessageFromServer(gameMessage(Message.LOSER,
+                            this.game.getSessionIdFor(result)));
+                    break;
+                default:
+                    throw new IllegalStateException("Only winners or losers here!");
+            }
+        }
+    }
+
+    /**
+     * Update the cards on the client side - only what changed since each player was last sent their cards. Players who
+     * only want the latest state and still haven't been sent everything from before get a snapshot instead, which
+     * replaces whatever card updates they have waiting.
+     */
+    private void updateCards() {
+        for (final Player player : this.game.getConnectedRealPlayers()) {
+            final WebSocketSession session = player.getSession();
+            if (this.outboundWriter.isLatestOnly(session) && this.outboundWriter.isBehind(session)) {
+                this.game.resync(player);
+            }
+        }
+        final Map<Player, List<GameMessage>> cardMessages = this.game.buildHandUpdates();
+        cardMessages.forEach((player, messages) ->
+                messages.forEach(toSend -> this.sendMessage(player.getSession(), toSend)));
+    }
+
+    /**
+     * Send 'your turn' to next player.
+     *
+     * @param player the player.
+     */
+    private void sendYourTurn(final Player player) {
+        LOG.info("Sending YOUR_TURN to {}", this.game.getSessionIdFor(player));
+        this.sendMessage(player.getSession(), gameMessage(Message.YOUR_TURN));
+        this.game.setWaitingOnReal(true);
+        this.turn = player;
+        if (this.turnTimeoutSeconds > 0) {
+            final long thisTurn = ++this.turnCount;
+            this.turnTimeout = this.timer.schedule(() -> this.execute(() -> this.turnTimedOut(player, thisTurn)),
+                    this.turnTimeoutSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * When we're ready to start - register the AI and send the messages.
+     */
+    private void doReadyToStart() {
+        this.game.registerAI();
+        this.acceptingConnections = false;
+        LOG.info("Game is now ready to start - sending message!");
+        final Player admin = this.game.getAdmin();
+        this.sendMessage(admin.getSession(), gameMessage(Message.READY_TO_START));
+        this.broadCastMessage(admin.getSession(),
+                gameMessage(Message.OTHER_READY_TO_START, admin.getSession().getId()));
+    }
+
+    /**
+     * Queue a message for the given session. It is sent with everything else the current task sends them.
+     *
+     * @param recipient the session.
+     * @param message   the message.
+     */
+    private void sendMessage(final WebSocketSession recipient, final GameMessage message) {
+        this.outbound.add(recipient, message);
+    }
+
+    /**
+     * Broadcast a message to the other users connected to this socket.
+     *
+     * @param sender  the sender.
+     * @param message the message.
+     */
+    private void broadCastMessage(final WebSocketSession sender, final GameMessage message) {
+        LOG.trace("SENDING {} TO {}.", message.getType(), this.game.getConnectedPlayerSessions());
+        for (final Player player : this.game.getConnectedRealPlayers()) {
+            if (!player.getSession().getId().equals(sender.getId())) {
+                this.sendMessage(player.getSession(), message);
+            }
+        }
+    }
+
+    /**
+     * Send a message to every real player connected.
+     *
+     * @param message the message.
+     */
+    private void broadCastMessageFromServer(final GameMessage message) {
+        for (final Player player : this.game.getConnectedRealPlayers()) {
+            this.sendMessage(player.getSession(), message);
+        }
+    }
+
+    /**
+     * Close a session, after sending it whatever it has queued.
+     *
+     * @param session the session.
+     * @param status  the reason why we're closing.
+     */
+    private void closeSession(final WebSocketSession session, final CloseStatus status) {
+        this.outbound.flush(session);
+        this.outboundWriter.close(session, status);
+    }
+
+}
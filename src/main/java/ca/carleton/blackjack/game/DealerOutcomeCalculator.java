@@ -0,0 +1,349 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Works out the exact chance of each total the dealer can finish on, given their face up card and the cards that
+ * haven't been seen yet. The dealer plays as {@link BlackJackService#getDealerOption(AIPlayer)} and the game have
+ * them: they hit until 17, stand on 17 only when they've never held an ace, and hit anything over 17. After each hit
+ * one high ace is lowered if the hand is over 21 or on 18 to 20, and seven cards making 21 is a seven card charlie.
+ * So the dealer only ever finishes on 17, 21 (by a charlie) or bust.
+ * <p/>
+ * Every (remaining cards, dealer hand) state reached while drawing is memoized in a bounded cache, keyed by the
+ * remaining cards packed into a long - without it the number of draw orders explodes after a few cards. The cache is
+ * split into stripes with a lock each, so tables working out different states don't wait on each other.
+ * <p/>
+ * Created by Mike on 11/24/2015.
+ */
+@Service
+public class DealerOutcomeCalculator implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DealerOutcomeCalculator.class);
+
+    /**
+     * Outcomes are indexed by final total minus 17 (so 0 to 4 for 17 to 21), then bust.
+     */
+    public static final int BUST = 5;
+
+    public static final int OUTCOMES = BUST + 1;
+
+    /**
+     * Cards are counted by blackjack value: aces at 0, then twos through to ten-value cards at 1 to 9.
+     */
+    public static final int VALUES = 10;
+
+    private static final int ACE = 0;
+
+    private static final int TENS = 9;
+
+    /**
+     * Bits each value's count takes in a signature. Six holds the 32 aces (or twos...) of an eight deck shoe, the ten
+     * value cards need eight for their 128.
+     */
+    private static final int[] SHIFTS = new int[VALUES];
+
+    private static final int[] LIMITS = new int[VALUES];
+
+    private static final double[][] STANDS = new double[OUTCOMES][];
+
+    static {
+        int shift = 0;
+        for (int value = 0; value < VALUES; value++) {
+            final int bits = value == TENS ? 8 : 6;
+            SHIFTS[value] = shift;
+            LIMITS[value] = (1 << bits) - 1;
+            shift += bits;
+        }
+        for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+            STANDS[outcome] = new double[OUTCOMES];
+            STANDS[outcome][outcome] = 1.0;
+        }
+    }
+
+    /**
+     * The cache is split into 16 stripes, picked by the top bits of the key's hash (the stripe's own map uses the low
+     * ones).
+     */
+    private static final int STRIPE_BITS = 4;
+
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    /**
+     * The dealer's hand is packed into an int for the cache key: hard total, high aces, whether they've held an ace,
+     * then cards held (capped at 8, only 7 matters).
+     */
+    private static final int HIGH_SHIFT = 6;
+
+    private static final int ACE_SHIFT = 9;
+
+    private static final int CARDS_SHIFT = 10;
+
+    private static final int CHARLIE_CARDS = 7;
+
+    @Value("${blackjack.dealer.outcomes.cache:100000}")
+    private int capacity;
+
+    private Stripe[] cache;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        final int capacity = Math.max(1, this.capacity);
+        final int perStripe = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        this.cache = new Stripe[STRIPES];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            this.cache[stripe] = new Stripe(perStripe);
+        }
+        LOG.info("Caching up to {} dealer outcome states.", perStripe * STRIPES);
+    }
+
+    /**
+     * Count the cards the players can't see: whatever is left in the shoe plus any face down cards in the given hands.
+     *
+     * @param shoe  the shoe.
+     * @param hands hands whose face down cards are still unknown.
+     * @return the counts by value, see {@link #VALUES}.
+     */
+    public static int[] unseen(final Shoe shoe, final Hand... hands) {
+        final int[] byCard = shoe.countRemaining(new int[Card.NUMBER_OF_CARDS]);
+        final int[] byValue = new int[VALUES];
+        for (int index = 0; index < byCard.length; index++) {
+            byValue[valueOf(Card.of(index))] += byCard[index];
+        }
+        for (final Hand hand : hands) {
+            for (int slot = 0; slot < hand.size(); slot++) {
+                if (hand.isHidden(slot)) {
+                    byValue[valueOf(hand.getCards().get(slot))]++;
+                }
+            }
+        }
+        return byValue;
+    }
+
+    /**
+     * The chance of each outcome for a dealer showing the given card, with their hole card and any hits still to come
+     * out of the unseen cards.
+     *
+     * @param upcard the dealer's face up card.
+     * @param unseen the unseen cards counted by value, see {@link #VALUES}. Left as it was when this returns.
+     * @return the chance of each outcome, indexed by total minus 17 and then {@link #BUST}.
+     */
+    public double[] getOutcomes(final Card upcard, final int[] unseen) {
+        final long signature = signature(unseen);
+        final int upcardValue = valueOf(upcard);
+        final boolean ace = upcardValue == ACE;
+        return this.outcomes(unseen, signature, remaining(unseen), upcardValue + 1, ace ? 1 : 0, ace, 1).clone();
+    }
+
+    /**
+     * The chance of each outcome before the dealer has been dealt anything, with every card they get still to come
+     * out of the unseen cards.
+     *
+     * @param unseen the unseen cards counted by value, see {@link #VALUES}. Left as it was when this returns.
+     * @return the chance of each outcome, indexed as {@link #getOutcomes(Card, int[])}.
+     */
+    public double[] getOutcomes(final int[] unseen) {
+        return this.outcomes(unseen, signature(unseen), remaining(unseen), 0, 0, false, 0).clone();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        int size = 0;
+        for (final Stripe stripe : this.cache) {
+            size += stripe.size();
+        }
+        return Arrays.asList(new Metric<>("dealeroutcomes.hits", this.hits.get()),
+                new Metric<>("dealeroutcomes.misses", this.misses.get()),
+                new Metric<>("dealeroutcomes.size", size));
+    }
+
+    /**
+     * @param counts    the unseen cards by value - changed while drawing, but put back before returning.
+     * @param signature the same counts packed into a long.
+     * @param remaining how many cards the counts add up to.
+     * @param hardTotal the dealer's total with every ace counted as 1.
+     * @param highAces  how many of the dealer's aces still count as 11.
+     * @param hadAce    whether the dealer holds an ace, high or low.
+     * @param cards     how many cards the dealer holds. The first two are dealt, the rest are hits.
+     */
+    private double[] outcomes(final int[] counts,
+                              final long signature,
+                              final int remaining,
+                              final int hardTotal,
+                              final int highAces,
+                              final boolean hadAce,
+                              final int cards) {
+        if (cards >= 2 && hardTotal + highAces * 10 == 17 && !hadAce) {
+            return STANDS[0];
+        }
+        if (remaining == 0) {
+            // Can only happen with a nearly empty composition - the real shoe would reshuffle. Call it a 17.
+            return STANDS[0];
+        }
+
+        final Key key = new Key(signature, hardTotal
+                | highAces << HIGH_SHIFT
+                | (hadAce ? 1 : 0) << ACE_SHIFT
+                | Math.min(cards, CHARLIE_CARDS + 1) << CARDS_SHIFT);
+        final Stripe stripe = this.cache[key.hashCode() >>> Integer.SIZE - STRIPE_BITS];
+        final double[] cached = stripe.get(key);
+        if (cached != null) {
+            this.hits.incrementAndGet();
+            return cached;
+        }
+        this.misses.incrementAndGet();
+
+        final double[] result = new double[OUTCOMES];
+        for (int value = 0; value < VALUES; value++) {
+            final int count = counts[value];
+            if (count == 0) {
+                continue;
+            }
+            final double chance = (double) count / remaining;
+            final int nextHard = hardTotal + value + 1;
+            int nextHigh = value == ACE ? highAces + 1 : highAces;
+            final boolean hit = cards >= 2;
+            if (hit && nextHigh > 0) {
+                // Dealt cards go in as they are (a pair of aces sits on 22), a hit lowers an ace when that helps.
+                final int drawn = nextHard + nextHigh * 10;
+                if (drawn > 21 || (drawn >= 18 && drawn <= 20)) {
+                    nextHigh--;
+                }
+            }
+            final int total = nextHard + nextHigh * 10;
+            final double[] next;
+            if (hit && total > 21) {
+                next = STANDS[BUST];
+            } else if (total == 21 && cards + 1 == CHARLIE_CARDS) {
+                next = STANDS[21 - 17];
+            } else {
+                counts[value]--;
+                next = this.outcomes(counts,
+                        signature - (1L << SHIFTS[value]),
+                        remaining - 1,
+                        nextHard,
+                        nextHigh,
+                        hadAce || value == ACE,
+                        cards + 1);
+                counts[value]++;
+            }
+            for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                result[outcome] += chance * next[outcome];
+            }
+        }
+        stripe.put(key, result);
+        return result;
+    }
+
+    private static long signature(final int[] unseen) {
+        if (unseen.length != VALUES) {
+            throw new IllegalArgumentException("Unseen cards must be counted by value.");
+        }
+        long signature = 0L;
+        for (int value = 0; value < VALUES; value++) {
+            if (unseen[value] < 0 || unseen[value] > LIMITS[value]) {
+                throw new IllegalArgumentException("Can't count " + unseen[value] + " cards of one value.");
+            }
+            signature |= (long) unseen[value] << SHIFTS[value];
+        }
+        return signature;
+    }
+
+    private static int remaining(final int[] unseen) {
+        int remaining = 0;
+        for (final int count : unseen) {
+            remaining += count;
+        }
+        return remaining;
+    }
+
+    private static int valueOf(final Card card) {
+        return card.isAce() ? ACE : card.getRank().getValue() - 1;
+    }
+
+    /**
+     * The unseen cards and the dealer's hand so far.
+     */
+    private static final class Key {
+
+        private final long composition;
+
+        private final int dealer;
+
+        private Key(final long composition, final int dealer) {
+            this.composition = composition;
+            this.dealer = dealer;
+        }
+
+        @Override
+        public boolean equals(final Object rhs) {
+            if (rhs instanceof Key) {
+                final Key other = (Key) rhs;
+                return this.composition == other.composition && this.dealer == other.dealer;
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.composition * 31 + this.dealer);
+        }
+
+    }
+
+    /**
+     * One stripe of the cache: an LRU map behind its own lock.
+     */
+    private static final class Stripe {
+
+        private final Map<Key, double[]> map;
+
+        private Stripe(final int capacity) {
+            this.map = new LinkedHashMap<Key, double[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Key, double[]> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        private synchronized double[] get(final Key key) {
+            return this.map.get(key);
+        }
+
+        private synchronized void put(final Key key, final double[] outcomes) {
+            this.map.put(key, outcomes);
+        }
+
+        private synchronized int size() {
+            return this.map.size();
+        }
+
+    }
+
+}
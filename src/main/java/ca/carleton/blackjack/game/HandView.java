@@ -0,0 +1,144 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.message.CardFragments;
+import ca.carleton.blackjack.game.message.GameMessage;
+import ca.carleton.blackjack.game.message.MessageUtil;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.gameMessage;
+
+/**
+ * What one real player's browser has been sent about the hands at their table, so that after a move only what
+ * changed - new cards, reveals and values - has to be sent.
+ * <p/>
+ * Seat 0 is the player themselves, seat 1 the dealer and the rest are the other players in the order their hands are
+ * shown. If the seats change, a new round was dealt or a hand gets smaller, a full snapshot is sent instead - a new
+ * round can deal as many cards as the last, so hand sizes alone don't show it.
+ * <p/>
+ * Created by Mike on 11/27/2015.
+ */
+class HandView {
+
+    private static final int SELF = 0;
+
+    private static final int DEALER = 1;
+
+    private static final long NOT_SENT = -1L;
+
+    /**
+     * The table version this view was last brought up to.
+     */
+    private long version = NOT_SENT;
+
+    /**
+     * The round this view's cards were dealt in.
+     */
+    private long round = NOT_SENT;
+
+    private Player[] seats = new Player[0];
+
+    private int[] cards = new int[0];
+
+    private long[] hidden = new long[0];
+
+    private long[] values = new long[0];
+
+    long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Add the messages that bring this view up to date with the given seats, and remember them as sent.
+     *
+     * @param seats    the seats, as described above.
+     * @param round    the round the hands were dealt in.
+     * @param version  the table version the seats are at.
+     * @param ids      how to get the id shown for another player.
+     * @param messages where to add the messages.
+     */
+    void update(final Player[] seats,
+                final long round,
+                final long version,
+                final Function<Player, String> ids,
+                final List<GameMessage> messages) {
+        if (round != this.round || this.needsSnapshot(seats)) {
+            messages.add(gameMessage(MessageUtil.Message.DEALING_CARDS));
+            this.round = round;
+            this.seats = seats;
+            this.cards = new int[seats.length];
+            this.hidden = new long[seats.length];
+            this.values = new long[seats.length];
+            Arrays.fill(this.values, NOT_SENT);
+        }
+        for (int seat = 0; seat < seats.length; seat++) {
+            this.updateSeat(seat, ids, messages);
+        }
+        this.version = version;
+    }
+
+    private boolean needsSnapshot(final Player[] seats) {
+        if (seats.length != this.seats.length) {
+            return true;
+        }
+        for (int seat = 0; seat < seats.length; seat++) {
+            if (seats[seat] != this.seats[seat] || seats[seat].getHand().size() < this.cards[seat]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateSeat(final int seat, final Function<Player, String> ids, final List<GameMessage> messages) {
+        final Player player = this.seats[seat];
+        final Hand hand = player.getHand();
+        final int otherIndex = seat - DEALER;
+
+        // Cards already sent face down that have since been turned over. Players always see their own cards.
+        if (seat != SELF) {
+            for (int slot = 0; slot < this.cards[seat]; slot++) {
+                if ((this.hidden[seat] & (1L << slot)) != 0L && !hand.isHidden(slot)) {
+                    messages.add(seat == DEALER
+                            ? CardFragments.revealDealerCard(hand, slot)
+                            : CardFragments.revealOtherPlayerCard(hand, slot, otherIndex));
+                }
+            }
+        }
+
+        for (int slot = this.cards[seat]; slot < hand.size(); slot++) {
+            if (seat == SELF) {
+                messages.add(CardFragments.playerCard(hand.getCards().get(slot)));
+            } else if (seat == DEALER) {
+                messages.add(CardFragments.dealerCard(hand, slot));
+            } else {
+                messages.add(CardFragments.otherPlayerCard(hand, slot, otherIndex, ids.apply(player)));
+            }
+        }
+
+        long hiddenSlots = 0L;
+        for (int slot = 0; slot < hand.size(); slot++) {
+            if (hand.isHidden(slot)) {
+                hiddenSlots |= 1L << slot;
+            }
+        }
+        this.cards[seat] = hand.size();
+        this.hidden[seat] = hiddenSlots;
+
+        final long value = seat == SELF ? hand.getHandValue() : hand.getVisibleHandValue();
+        if (value != this.values[seat]) {
+            this.values[seat] = value;
+            if (seat == SELF) {
+                messages.add(gameMessage(MessageUtil.Message.PLAYER_VALUE, value));
+            } else if (seat == DEALER) {
+                messages.add(gameMessage(MessageUtil.Message.DEALER_VALUE, value));
+            } else {
+                messages.add(gameMessage(MessageUtil.Message.OTHER_VALUE, otherIndex, value));
+            }
+        }
+    }
+
+}
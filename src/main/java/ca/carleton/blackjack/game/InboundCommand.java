@@ -0,0 +1,247 @@
+package ca.carleton.blackjack.game;
+
+/**
+ * A command sent by a client, decoded from its text payload.
+ * <p/>
+ * Payloads are {@code KEY} or {@code KEY|VALUE} ({@code ACCEPT|PLAYERS|SEATS} also sets the table size). They are
+ * read in place - no regex and no splitting - and anything that isn't exactly one of the commands below is rejected.
+ * Commands without a value are shared instances, so decoding them allocates nothing.
+ * <p/>
+ * Whether a well formed command is allowed right now (whose turn it is, who the admin is) is up to the table.
+ * <p/>
+ * Created by Mike on 11/28/2015.
+ */
+public final class InboundCommand {
+
+    public enum Type {
+        JOIN,
+        ACCEPT,
+        START_GAME,
+        GAME_OPTION,
+        RESYNC,
+        LEAVING,
+        UPDATES
+    }
+
+    /**
+     * Nothing we accept is anywhere near this long.
+     */
+    static final int MAX_LENGTH = 64;
+
+    private static final InboundCommand START_GAME = new InboundCommand(Type.START_GAME, 0, null, null);
+
+    private static final InboundCommand RESYNC = new InboundCommand(Type.RESYNC, 0, null, null);
+
+    private static final InboundCommand LEAVING = new InboundCommand(Type.LEAVING, 0, null, null);
+
+    private static final InboundCommand JOIN_DEFAULT = new InboundCommand(Type.JOIN, 0, null, null);
+
+    private static final InboundCommand STAY = new InboundCommand(Type.GAME_OPTION, 0, GameOption.STAY, null);
+
+    private static final InboundCommand HIT = new InboundCommand(Type.GAME_OPTION, 0, GameOption.HIT, null);
+
+    private static final InboundCommand SPLIT = new InboundCommand(Type.GAME_OPTION, 0, GameOption.SPLIT, null);
+
+    private static final InboundCommand UPDATES_ALL = new InboundCommand(Type.UPDATES, 0, null, null);
+
+    private static final InboundCommand UPDATES_LATEST = new InboundCommand(Type.UPDATES, 1, null, null);
+
+    private static final InboundCommand[] ACCEPTS = new InboundCommand[BlackJackGame.MAX_SEATS + 1];
+
+    static {
+        for (int players = 1; players < ACCEPTS.length; players++) {
+            ACCEPTS[players] = new InboundCommand(Type.ACCEPT, players, null, null);
+        }
+    }
+
+    private static final int NO_VALUE = -1;
+
+    private final Type type;
+
+    /**
+     * The lobby size for ACCEPT, or 1 for UPDATES|latest.
+     */
+    private final int value;
+
+    /**
+     * The table size for ACCEPT, or 0 to leave it as it is.
+     */
+    private final int seats;
+
+    private final GameOption option;
+
+    private final String tableId;
+
+    private InboundCommand(final Type type, final int value, final GameOption option, final String tableId) {
+        this(type, value, 0, option, tableId);
+    }
+
+    private InboundCommand(final Type type,
+                           final int value,
+                           final int seats,
+                           final GameOption option,
+                           final String tableId) {
+        this.type = type;
+        this.value = value;
+        this.seats = seats;
+        this.option = option;
+        this.tableId = tableId;
+    }
+
+    /**
+     * Decode a payload.
+     *
+     * @param payload the payload.
+     * @return the command, or null if the payload isn't one.
+     */
+    public static InboundCommand decode(final String payload) {
+        if (payload == null || payload.isEmpty() || payload.length() > MAX_LENGTH) {
+            return null;
+        }
+        final int bar = payload.indexOf('|');
+        final int keyEnd = bar < 0 ? payload.length() : bar;
+
+        if (isKey(payload, keyEnd, "JOIN")) {
+            // The registry checks the table id itself.
+            return bar < 0 ? JOIN_DEFAULT : new InboundCommand(Type.JOIN, 0, null, payload.substring(bar + 1));
+        }
+        if (isKey(payload, keyEnd, "ACCEPT")) {
+            return bar < 0 ? null : accept(payload, bar + 1);
+        }
+        if (isKey(payload, keyEnd, "UPDATES")) {
+            if (bar < 0) {
+                return null;
+            }
+            if (isKey(payload, payload.length(), "UPDATES|latest")) {
+                return UPDATES_LATEST;
+            }
+            return isKey(payload, payload.length(), "UPDATES|all") ? UPDATES_ALL : null;
+        }
+        if (bar >= 0) {
+            // Nothing else takes a value.
+            return null;
+        }
+        if (isKey(payload, keyEnd, "START_GAME")) {
+            return START_GAME;
+        }
+        if (isKey(payload, keyEnd, "GAME_STAY")) {
+            return STAY;
+        }
+        if (isKey(payload, keyEnd, "GAME_HIT")) {
+            return HIT;
+        }
+        if (isKey(payload, keyEnd, "GAME_SPLIT")) {
+            return SPLIT;
+        }
+        if (isKey(payload, keyEnd, "RESYNC")) {
+            return RESYNC;
+        }
+        if (isKey(payload, keyEnd, "LEAVING")) {
+            return LEAVING;
+        }
+        return null;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * @return for ACCEPT, the number of real players the lobby is opened for.
+     */
+    public int getPlayers() {
+        return this.value;
+    }
+
+    /**
+     * @return for ACCEPT, how many players the table should seat, or 0 to keep its size.
+     */
+    public int getSeats() {
+        return this.seats;
+    }
+
+    /**
+     * @return for UPDATES, whether the client only wants the latest cards when it falls behind rather than every
+     * update.
+     */
+    public boolean isLatestOnly() {
+        return this.type == Type.UPDATES && this.value == 1;
+    }
+
+    /**
+     * @return for GAME_OPTION, the option chosen.
+     */
+    public GameOption getOption() {
+        return this.option;
+    }
+
+    /**
+     * @return for JOIN, the table asked for - null for the default table.
+     */
+    public String getTableId() {
+        return this.tableId;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.type) {
+            case ACCEPT:
+                return this.seats == 0 ? "ACCEPT|" + this.value : "ACCEPT|" + this.value + "|" + this.seats;
+            case GAME_OPTION:
+                return "GAME_" + this.option;
+            case JOIN:
+                return this.tableId == null ? "JOIN" : "JOIN|" + this.tableId;
+            case UPDATES:
+                return this.isLatestOnly() ? "UPDATES|latest" : "UPDATES|all";
+            default:
+                return this.type.name();
+        }
+    }
+
+    private static boolean isKey(final String payload, final int keyEnd, final String key) {
+        return keyEnd == key.length() && payload.startsWith(key);
+    }
+
+    /**
+     * The lobby size, then optionally the table size: each one or two digits, from 1 to the most players any table
+     * seats ({@link BlackJackGame#MAX_SEATS}). A table can't be smaller than its lobby; whether this table can take
+     * them is checked when the command reaches it.
+     */
+    private static InboundCommand accept(final String payload, final int from) {
+        final int bar = payload.indexOf('|', from);
+        final int players = number(payload, from, bar < 0 ? payload.length() : bar);
+        if (players < 1 || players >= ACCEPTS.length) {
+            return null;
+        }
+        if (bar < 0) {
+            return ACCEPTS[players];
+        }
+        final int seats = number(payload, bar + 1, payload.length());
+        if (seats < players || seats > BlackJackGame.MAX_SEATS) {
+            return null;
+        }
+        return new InboundCommand(Type.ACCEPT, players, seats, null, null);
+    }
+
+    /**
+     * One or two digits.
+     *
+     * @return the number, or -1 if it isn't one.
+     */
+    private static int number(final String payload, final int from, final int to) {
+        final int digits = to - from;
+        if (digits < 1 || digits > 2) {
+            return NO_VALUE;
+        }
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            final char c = payload.charAt(i);
+            if (c < '0' || c > '9') {
+                return NO_VALUE;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+}
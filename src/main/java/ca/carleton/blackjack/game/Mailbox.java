@@ -0,0 +1,70 @@
+package ca.carleton.blackjack.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A table's mailbox. Tasks are queued from any thread but only ever run one at a time, in the order they arrived,
+ * on the shared worker pool - so everything a table does happens as if it were single threaded.
+ * <p/>
+ * Created by Mike on 11/20/2015.
+ */
+class Mailbox implements Executor, Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Mailbox.class);
+
+    /**
+     * How many tasks we run before giving the thread back to other tables.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final Executor workers;
+
+    Mailbox(final Executor workers) {
+        this.workers = workers;
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        this.tasks.add(task);
+        this.schedule();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final Runnable task = this.tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (final RuntimeException exception) {
+                    LOG.error("Error processing table task.", exception);
+                }
+            }
+        } finally {
+            this.scheduled.set(false);
+            if (!this.tasks.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            this.workers.execute(this);
+        }
+    }
+
+}
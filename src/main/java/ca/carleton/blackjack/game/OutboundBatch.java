@@ -0,0 +1,241 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.message.BinaryProtocol;
+import ca.carleton.blackjack.game.message.GameMessage;
+import ca.carleton.blackjack.session.OutboundWriter;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+
+/**
+ * Messages a table task wants to send, held until the task is done and then sent as one frame per session.
+ * <p/>
+ * Text frames separate messages with {@link #SEPARATOR} (the ASCII record separator, which never shows up in a
+ * message) and the client splits them back up in the order they were added. Binary frames are just the records one
+ * after another - see {@link BinaryProtocol}.
+ * <p/>
+ * Only references to the messages are kept until the batch is drained. Sessions that were sent exactly the same
+ * messages - everyone who only got broadcasts - then share a single encoded frame, so the work per session is just
+ * for the messages meant for them alone.
+ * <p/>
+ * Sessions that only want the latest state get their card updates in a second frame, sent to the writer as state -
+ * see {@link OutboundWriter#sendState(WebSocketSession, WebSocketMessage, boolean)}.
+ * <p/>
+ * Created by Mike on 11/27/2015.
+ */
+class OutboundBatch {
+
+    static final char SEPARATOR = '\u001E';
+
+    /**
+     * What a table's cards look like - everything a snapshot is made of.
+     */
+    private static final Set<Message> CARD_STATE = EnumSet.of(Message.DEALING_CARDS,
+            Message.ADD_PLAYER_CARD,
+            Message.ADD_DEALER_CARD,
+            Message.ADD_OTHER_PLAYER_CARD,
+            Message.REVEAL_DEALER_CARD,
+            Message.REVEAL_OTHER_PLAYER_CARD,
+            Message.PLAYER_VALUE,
+            Message.DEALER_VALUE,
+            Message.OTHER_VALUE);
+
+    private final OutboundWriter writer;
+
+    private final Map<WebSocketSession, Pending> pending = new LinkedHashMap<>();
+
+    OutboundBatch(final OutboundWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Queue a message for the given session.
+     *
+     * @param session the session.
+     * @param message the message.
+     */
+    void add(final WebSocketSession session, final GameMessage message) {
+        Pending messages = this.pending.get(session);
+        if (messages == null) {
+            messages = new Pending(this.writer.isLatestOnly(session));
+            this.pending.put(session, messages);
+        }
+        if (messages.state != null && CARD_STATE.contains(message.getType())) {
+            messages.state.add(message);
+        } else {
+            messages.events.add(message);
+        }
+    }
+
+    /**
+     * Send whatever is queued for one session now, ahead of the rest of the batch.
+     *
+     * @param session the session.
+     */
+    void flush(final WebSocketSession session) {
+        final Pending messages = this.pending.remove(session);
+        if (messages != null) {
+            this.send(session, messages, new HashMap<>());
+        }
+    }
+
+    /**
+     * Send every queued frame and empty the batch.
+     */
+    void flush() {
+        if (this.pending.isEmpty()) {
+            return;
+        }
+        final List<Map.Entry<WebSocketSession, Pending>> toSend = new ArrayList<>(this.pending.entrySet());
+        this.pending.clear();
+        final Map<Frame, Encoded> encoded = new HashMap<>();
+        for (final Map.Entry<WebSocketSession, Pending> entry : toSend) {
+            this.send(entry.getKey(), entry.getValue(), encoded);
+        }
+    }
+
+    private void send(final WebSocketSession session, final Pending messages, final Map<Frame, Encoded> encoded) {
+        final boolean binary = BinaryProtocol.isBinary(session);
+        if (!messages.events.isEmpty()) {
+            this.writer.send(session, encode(new Frame(messages.events, binary), encoded));
+        }
+        if (messages.state != null && !messages.state.isEmpty()) {
+            // A snapshot always starts by clearing the cards.
+            final boolean snapshot = messages.state.get(0).getType() == Message.DEALING_CARDS;
+            this.writer.sendState(session, encode(new Frame(messages.state, binary), encoded), snapshot);
+        }
+    }
+
+    private static WebSocketMessage<?> encode(final Frame frame, final Map<Frame, Encoded> encoded) {
+        Encoded shared = encoded.get(frame);
+        if (shared == null) {
+            shared = frame.encode();
+            encoded.put(frame, shared);
+        }
+        return shared.forSession();
+    }
+
+    /**
+     * One session's messages. Card updates are kept apart for sessions that only want the latest state.
+     */
+    private static final class Pending {
+
+        private final List<GameMessage> events = new ArrayList<>(8);
+
+        private final List<GameMessage> state;
+
+        private Pending(final boolean latestOnly) {
+            this.state = latestOnly ? new ArrayList<>(8) : null;
+        }
+
+    }
+
+    /**
+     * The messages for one session in the protocol it speaks. Two frames are equal when they hold the very same
+     * message instances in the same order.
+     */
+    private static final class Frame {
+
+        private final List<GameMessage> messages;
+
+        private final boolean binary;
+
+        private final int hash;
+
+        private Frame(final List<GameMessage> messages, final boolean binary) {
+            this.messages = messages;
+            this.binary = binary;
+            int hash = binary ? 1 : 0;
+            for (final GameMessage message : messages) {
+                hash = 31 * hash + System.identityHashCode(message);
+            }
+            this.hash = hash;
+        }
+
+        private Encoded encode() {
+            if (this.binary) {
+                int length = 0;
+                for (final GameMessage message : this.messages) {
+                    length += message.toRecord().length;
+                }
+                final byte[] payload = new byte[length];
+                int offset = 0;
+                for (final GameMessage message : this.messages) {
+                    final byte[] record = message.toRecord();
+                    System.arraycopy(record, 0, payload, offset, record.length);
+                    offset += record.length;
+                }
+                return new Encoded(null, payload);
+            }
+            final StringBuilder payload = new StringBuilder(256);
+            for (final GameMessage message : this.messages) {
+                if (payload.length() > 0) {
+                    payload.append(SEPARATOR);
+                }
+                payload.append(message.toText().getPayload());
+            }
+            return new Encoded(new TextMessage(payload), null);
+        }
+
+        @Override
+        public boolean equals(final Object rhs) {
+            if (!(rhs instanceof Frame)) {
+                return false;
+            }
+            final Frame other = (Frame) rhs;
+            if (this.binary != other.binary || this.hash != other.hash
+                    || this.messages.size() != other.messages.size()) {
+                return false;
+            }
+            for (int i = 0; i < this.messages.size(); i++) {
+                if (this.messages.get(i) != other.messages.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+    }
+
+    /**
+     * A frame encoded once, for every session it goes to. Nothing ever writes to the shared bytes.
+     */
+    private static final class Encoded {
+
+        private final TextMessage text;
+
+        private final byte[] binary;
+
+        private Encoded(final TextMessage text, final byte[] binary) {
+            this.text = text;
+            this.binary = binary;
+        }
+
+        /**
+         * Text messages are immutable and can be handed out as they are. Binary ones get their own buffer position
+         * over the same bytes, as sending a buffer moves it.
+         */
+        private WebSocketMessage<?> forSession() {
+            return this.text != null ? this.text : new BinaryMessage(ByteBuffer.wrap(this.binary));
+        }
+
+    }
+
+}
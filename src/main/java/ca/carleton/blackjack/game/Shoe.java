@@ -0,0 +1,163 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents a dealing shoe holding one or more decks.
+ * <p/>
+ * The cards live in a byte array and are drawn by moving a cursor along it. Once the cursor passes the cut card the
+ * shoe is handed back to the {@link ShoePool} to be shuffled off the game thread, so the same array is reused.
+ * <p/>
+ * Cards before the cursor are either discards from earlier rounds or in play this round - {@link #startRound()} marks
+ * where one ends and the other starts, so running dry mid-round only shuffles the discards back in.
+ * <p/>
+ * Created by Mike on 11/3/2015.
+ */
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+public class Shoe {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Shoe.class);
+
+    public static final int MIN_DECKS = 1;
+
+    public static final int MAX_DECKS = 8;
+
+    public static final int CARDS_PER_DECK = Card.NUMBER_OF_CARDS;
+
+    private final byte[] cards;
+
+    private final int cutCard;
+
+    private int cursor;
+
+    /**
+     * Where this round's cards start - everything before it is discarded.
+     */
+    private int roundStart;
+
+    @Autowired
+    public Shoe(@Value("${blackjack.shoe.decks:1}") final int decks,
+                @Value("${blackjack.shoe.penetration:0.75}") final double penetration) {
+        if (decks < MIN_DECKS || decks > MAX_DECKS) {
+            throw new IllegalArgumentException(String.format("A shoe holds %d to %d decks, not %d.",
+                    MIN_DECKS,
+                    MAX_DECKS,
+                    decks));
+        }
+        if (penetration <= 0.0 || penetration > 1.0) {
+            throw new IllegalArgumentException("Penetration must be greater than 0 and at most 1.");
+        }
+
+        this.cards = new byte[decks * CARDS_PER_DECK];
+        for (int i = 0; i < this.cards.length; i++) {
+            this.cards[i] = (byte) (i % CARDS_PER_DECK);
+        }
+        this.cutCard = (int) (this.cards.length * penetration);
+        this.shuffle();
+    }
+
+    /**
+     * Shuffle every card back into the shoe.
+     */
+    public void shuffle() {
+        final Random random = ThreadLocalRandom.current();
+        for (int i = this.cards.length - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final byte swap = this.cards[i];
+            this.cards[i] = this.cards[j];
+            this.cards[j] = swap;
+        }
+        this.cursor = 0;
+        this.roundStart = 0;
+    }
+
+    /**
+     * Discard every card drawn so far - call before dealing each round.
+     */
+    public void startRound() {
+        this.roundStart = this.cursor;
+    }
+
+    /**
+     * Draw from the shoe. If it runs dry in the middle of a round, the discards are shuffled back in and dealing
+     * carries on - the cards in play stay out.
+     *
+     * @return the card.
+     * @throws IllegalStateException if every card in the shoe is in play.
+     */
+    public Card draw() {
+        if (this.cursor == this.cards.length) {
+            this.reshuffleDiscards();
+        }
+        return Card.of(this.cards[this.cursor++]);
+    }
+
+    /**
+     * Move the cards in play to the front of the shoe and shuffle the discards behind them.
+     */
+    private void reshuffleDiscards() {
+        final int inPlay = this.cards.length - this.roundStart;
+        if (inPlay == this.cards.length) {
+            throw new IllegalStateException("Every card in the shoe is in play - there is nothing to shuffle.");
+        }
+        LOG.warn("Shoe ran out of cards mid-round - shuffling the discards back in.");
+        // Rotating the whole array left by roundStart puts the cards in play first.
+        reverse(this.cards, 0, this.cards.length);
+        reverse(this.cards, 0, inPlay);
+        reverse(this.cards, inPlay, this.cards.length);
+        final Random random = ThreadLocalRandom.current();
+        for (int i = this.cards.length - 1; i > inPlay; i--) {
+            final int j = inPlay + random.nextInt(i - inPlay + 1);
+            final byte swap = this.cards[i];
+            this.cards[i] = this.cards[j];
+            this.cards[j] = swap;
+        }
+        this.roundStart = 0;
+        this.cursor = inPlay;
+    }
+
+    private static void reverse(final byte[] cards, final int from, final int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            final byte swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
+        }
+    }
+
+    public boolean isCutCardReached() {
+        return this.cursor >= this.cutCard;
+    }
+
+    public int getRemaining() {
+        return this.cards.length - this.cursor;
+    }
+
+    /**
+     * Count the cards still to be drawn, by card index.
+     *
+     * @param counts an array of {@link Card#NUMBER_OF_CARDS} to add the counts to.
+     * @return the same array.
+     */
+    public int[] countRemaining(final int[] counts) {
+        for (int i = this.cursor; i < this.cards.length; i++) {
+            counts[this.cards[i]]++;
+        }
+        return counts;
+    }
+
+    public int getDecks() {
+        return this.cards.length / CARDS_PER_DECK;
+    }
+
+}
@@ -0,0 +1,122 @@
+package ca.carleton.blackjack.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a supply of ready-shuffled shoes so tables never shuffle on their own thread.
+ * <p/>
+ * A low priority background thread shuffles the shoes tables hand back and tops up the ready queue. If a table asks
+ * for a shoe while none are ready, it is shuffled on the spot and counted as a miss.
+ * <p/>
+ * Created by Mike on 11/21/2015.
+ */
+@Service
+public class ShoePool implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ShoePool.class);
+
+    @Value("${blackjack.shoe.pool.depth:8}")
+    private int depth;
+
+    @Autowired
+    private ObjectFactory<Shoe> shoeFactory;
+
+    private BlockingQueue<Shoe> ready;
+
+    private BlockingQueue<Shoe> spent;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private Thread producer;
+
+    @PostConstruct
+    public void init() {
+        this.ready = new ArrayBlockingQueue<>(Math.max(1, this.depth));
+        this.spent = new ArrayBlockingQueue<>(Math.max(1, this.depth));
+        this.producer = new Thread(this::produce, "shoe-pool-producer");
+        this.producer.setPriority(Thread.MIN_PRIORITY);
+        this.producer.setDaemon(true);
+        this.producer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.producer.interrupt();
+    }
+
+    /**
+     * Hand back a used shoe (if any) and take the next ready one.
+     *
+     * @param used the shoe that is finished with, or null.
+     * @return a freshly shuffled shoe.
+     */
+    public Shoe exchange(final Shoe used) {
+        if (used != null && !this.spent.offer(used)) {
+            LOG.debug("Spent shoes backed up - dropping one.");
+        }
+        final Shoe shoe = this.ready.poll();
+        if (shoe != null) {
+            this.hits.incrementAndGet();
+            return shoe;
+        }
+        this.misses.incrementAndGet();
+        LOG.warn("No shuffled shoe ready - shuffling inline.");
+        return this.nextShuffled();
+    }
+
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(new Metric<>("shoepool.hits", this.hits.get()),
+                new Metric<>("shoepool.misses", this.misses.get()),
+                new Metric<>("shoepool.ready", this.ready.size()));
+    }
+
+    private void produce() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                this.ready.put(this.nextShuffled());
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        LOG.info("Shoe pool producer stopped.");
+    }
+
+    /**
+     * Recycle a spent shoe if we have one, otherwise build a new one (which comes shuffled).
+     */
+    private Shoe nextShuffled() {
+        final Shoe recycled = this.spent.poll();
+        if (recycled == null) {
+            return this.shoeFactory.getObject();
+        }
+        recycled.shuffle();
+        return recycled;
+    }
+
+}
@@ -0,0 +1,181 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+
+import java.util.Arrays;
+
+/**
+ * A fixed playing strategy, looked up by (player total, hard/soft/pair, dealer upcard).
+ * <p/>
+ * Tables are written out as charts - one row per total, one column per dealer upcard from 2 to ace - and compiled
+ * once into a flat array of options, so deciding a move is a single array read.
+ * <p/>
+ * Created by Mike on 11/24/2015.
+ */
+public final class StrategyTable {
+
+    private static final int HARD = 0;
+
+    private static final int SOFT = 1;
+
+    private static final int PAIR = 2;
+
+    private static final int KINDS = 3;
+
+    /**
+     * Totals (or pair card values) from 0 to 21, so rows can be indexed by the total directly.
+     */
+    private static final int TOTALS = 22;
+
+    private static final int LOWEST_UPCARD = 2;
+
+    private static final int UPCARDS = 10;
+
+    private static final GameOption[] OPTIONS = GameOption.values();
+
+    /**
+     * Basic strategy for a multi-deck shoe where the dealer hits soft 17. We can't double or surrender, so doubles
+     * are played as hits (or stays where the chart says double-else-stand) and surrenders as hits.
+     */
+    public static final StrategyTable BASIC = new StrategyTable("basic",
+            // Hard totals, 2 (two lowered aces) to 21.
+            new String[]{
+                    "HHHHHHHHHH", // 2
+                    "HHHHHHHHHH", // 3
+                    "HHHHHHHHHH", // 4
+                    "HHHHHHHHHH", // 5
+                    "HHHHHHHHHH", // 6
+                    "HHHHHHHHHH", // 7
+                    "HHHHHHHHHH", // 8
+                    "HHHHHHHHHH", // 9
+                    "HHHHHHHHHH", // 10
+                    "HHHHHHHHHH", // 11
+                    "HHSSSHHHHH", // 12
+                    "SSSSSHHHHH", // 13
+                    "SSSSSHHHHH", // 14
+                    "SSSSSHHHHH", // 15
+                    "SSSSSHHHHH", // 16
+                    "SSSSSSSSSS", // 17
+                    "SSSSSSSSSS", // 18
+                    "SSSSSSSSSS", // 19
+                    "SSSSSSSSSS", // 20
+                    "SSSSSSSSSS"  // 21
+            },
+            // Soft totals, 12 to 21.
+            new String[]{
+                    "HHHHHHHHHH", // A,A when it is not a pair
+                    "HHHHHHHHHH", // A,2
+                    "HHHHHHHHHH", // A,3
+                    "HHHHHHHHHH", // A,4
+                    "HHHHHHHHHH", // A,5
+                    "HHHHHHHHHH", // A,6
+                    "SSSSSSSHHH", // A,7
+                    "SSSSSSSSSS", // A,8
+                    "SSSSSSSSSS", // A,9
+                    "SSSSSSSSSS"  // blackjack
+            },
+            // Pairs, 2s to aces.
+            new String[]{
+                    "PPPPPPHHHH", // 2,2
+                    "PPPPPPHHHH", // 3,3
+                    "HHHPPHHHHH", // 4,4
+                    "HHHHHHHHHH", // 5,5
+                    "PPPPPHHHHH", // 6,6
+                    "PPPPPPHHHH", // 7,7
+                    "PPPPPPPPPP", // 8,8
+                    "PPPPPSPPSS", // 9,9
+                    "SSSSSSSSSS", // 10,10
+                    "PPPPPPPPPP"  // A,A
+            });
+
+    private final String name;
+
+    private final byte[] options = new byte[KINDS * TOTALS * UPCARDS];
+
+    private StrategyTable(final String name, final String[] hard, final String[] soft, final String[] pairs) {
+        this.name = name;
+        // Anything the charts don't cover (21 and up) stays put.
+        Arrays.fill(this.options, (byte) GameOption.STAY.ordinal());
+        this.compile(HARD, 2, hard);
+        this.compile(SOFT, 12, soft);
+        this.compile(PAIR, 2, pairs);
+    }
+
+    /**
+     * Get a table by name. {@code null} is returned for "house", which means the AI plays by our own game rules
+     * instead of a table.
+     *
+     * @param name the name.
+     * @return the table, or null for the house rules.
+     */
+    public static StrategyTable forName(final String name) {
+        if ("house".equalsIgnoreCase(name)) {
+            return null;
+        }
+        if (BASIC.name.equalsIgnoreCase(name)) {
+            return BASIC;
+        }
+        throw new IllegalArgumentException("No strategy table named " + name);
+    }
+
+    /**
+     * The move to make with the given hand against the dealer's face up card.
+     *
+     * @param hand   the hand.
+     * @param upcard the dealer's face up card.
+     * @return the option.
+     */
+    public GameOption decide(final Hand hand, final Card upcard) {
+        final int upcardValue = upcard.getRank().getValue();
+        // Checked before the total, as two aces are dealt as 22 until one is lowered.
+        if (hand.size() == 2 && !hand.isSplitHand()
+                && hand.getCards().get(0).getRank() == hand.getCards().get(1).getRank()) {
+            return OPTIONS[this.options[index(PAIR, hand.getCards().get(0).getRank().getValue(), upcardValue)]];
+        }
+        final int total = (int) hand.getHandValue();
+        if (total >= 21) {
+            return GameOption.STAY;
+        }
+        return OPTIONS[this.options[index(hand.isSoft() ? SOFT : HARD, total, upcardValue)]];
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    private void compile(final int kind, final int firstRow, final String[] chart) {
+        for (int row = 0; row < chart.length; row++) {
+            if (chart[row].length() != UPCARDS) {
+                throw new IllegalArgumentException("Strategy rows need one move per dealer upcard: " + chart[row]);
+            }
+            for (int upcard = 0; upcard < UPCARDS; upcard++) {
+                this.options[index(kind, firstRow + row, LOWEST_UPCARD + upcard)] =
+                        (byte) toOption(chart[row].charAt(upcard)).ordinal();
+            }
+        }
+    }
+
+    private static int index(final int kind, final int row, final int upcardValue) {
+        return (kind * TOTALS + row) * UPCARDS + upcardValue - LOWEST_UPCARD;
+    }
+
+    private static GameOption toOption(final char move) {
+        switch (move) {
+            case 'H':
+                return GameOption.HIT;
+            case 'S':
+                return GameOption.STAY;
+            case 'P':
+                return GameOption.SPLIT;
+            default:
+                throw new IllegalArgumentException("Unknown strategy move " + move);
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package ca.carleton.blackjack.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps track of every table running on this server, and which table each session is seated at.
+ * <p/>
+ * Created by Mike on 11/20/2015.
+ */
+@Service
+public class TableRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableRegistry.class);
+
+    public static final String DEFAULT_TABLE = "default";
+
+    private static final Pattern VALID_TABLE_ID = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+
+    private final ConcurrentMap<String, BlackJackTable> tables = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, BlackJackTable> sessions = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ObjectFactory<BlackJackTable> tableFactory;
+
+    /**
+     * Seat the session at the table with the given id, creating the table if it doesn't exist yet.
+     *
+     * @param session the session.
+     * @param tableId the table id, or null for the default table.
+     * @return the table.
+     */
+    public BlackJackTable bind(final WebSocketSession session, final String tableId) {
+        final String id = tableId != null && VALID_TABLE_ID.matcher(tableId).matches() ? tableId : DEFAULT_TABLE;
+        // Done atomically against remove so we never seat someone at a table that is being torn down.
+        final BlackJackTable table = this.tables.compute(id, (key, existing) -> {
+            final BlackJackTable bound = existing != null ? existing : this.newTable(key);
+            bound.getBoundSessions().incrementAndGet();
+            return bound;
+        });
+        this.sessions.put(session.getId(), table);
+        return table;
+    }
+
+    /**
+     * Remove the session from whatever table it was seated at. The table is torn down once no sessions are left.
+     *
+     * @param session the session.
+     * @return the table it was seated at, or null.
+     */
+    public BlackJackTable unbind(final WebSocketSession session) {
+        final BlackJackTable table = this.sessions.remove(session.getId());
+        if (table != null) {
+            this.tables.computeIfPresent(table.getId(), (key, existing) -> {
+                if (existing == table && table.getBoundSessions().decrementAndGet() == 0) {
+                    LOG.info("Removed table {}.", key);
+                    table.removed();
+                    return null;
+                }
+                return existing;
+            });
+        }
+        return table;
+    }
+
+    /**
+     * Get the table with the given id.
+     *
+     * @param tableId the table id.
+     * @return the table, or null if there is no such table.
+     */
+    public BlackJackTable get(final String tableId) {
+        return this.tables.get(tableId);
+    }
+
+    /**
+     * Get the table the session is seated at.
+     *
+     * @param session the session.
+     * @return the table, or null.
+     */
+    public BlackJackTable getTableFor(final WebSocketSession session) {
+        return this.sessions.get(session.getId());
+    }
+
+    public Collection<BlackJackTable> getTables() {
+        return Collections.unmodifiableCollection(this.tables.values());
+    }
+
+    private BlackJackTable newTable(final String id) {
+        final BlackJackTable table = this.tableFactory.getObject();
+        table.setId(id);
+        LOG.info("Created table {}.", id);
+        return table;
+    }
+
+}
@@ -0,0 +1,108 @@
+package ca.carleton.blackjack.game;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The shared, bounded pool of threads that runs every table's mailbox.
+ * <p/>
+ * Table code only ever runs on the pool's own threads. If more tables are busy than the queue holds, the extra
+ * mailboxes wait in an overflow list (and are counted) until a worker finishes a batch and hands one of them in -
+ * they are never run on the thread that queued them, which could be a socket or timer thread.
+ * <p/>
+ * Created by Mike on 11/20/2015.
+ */
+@Service
+public class TableWorkerPool implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableWorkerPool.class);
+
+    @Value("${blackjack.table.workers:0}")
+    private int workers;
+
+    @Value("${blackjack.table.queue:10000}")
+    private int queueSize;
+
+    private ThreadPoolExecutor executor;
+
+    private final Deque<Runnable> overflow = new ConcurrentLinkedDeque<>();
+
+    private final AtomicLong overflowed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        final int threads = this.workers > 0 ? this.workers : Runtime.getRuntime().availableProcessors();
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "table-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Only scheduled mailboxes sit in the queue, so it is bounded by the number of busy tables.
+        this.executor = new ThreadPoolExecutor(threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueSize),
+                threadFactory,
+                (mailbox, executor) -> {
+                    this.overflowed.incrementAndGet();
+                    this.overflow.add(mailbox);
+                }) {
+            @Override
+            protected void afterExecute(final Runnable mailbox, final Throwable thrown) {
+                // The queue was full when these were rejected, so some worker always gets here to hand them in.
+                // Every core thread is running by then, so the mailbox can go straight on the queue.
+                final Runnable waiting = TableWorkerPool.this.overflow.pollFirst();
+                if (waiting != null && !this.getQueue().offer(waiting)) {
+                    TableWorkerPool.this.overflow.addFirst(waiting);
+                }
+            }
+        };
+        LOG.info("Started table worker pool with {} threads.", threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    public long getOverflowed() {
+        return this.overflowed.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(new Metric<>("table.pool.queued", this.executor.getQueue().size()),
+                new Metric<>("table.pool.overflowed", this.overflowed.get()),
+                new Metric<>("table.pool.overflow", this.overflow.size()));
+    }
+
+    /**
+     * Create a new mailbox that runs its tasks one at a time on this pool.
+     *
+     * @return the mailbox.
+     */
+    public Executor newMailbox() {
+        return new Mailbox(this.executor);
+    }
+
+}
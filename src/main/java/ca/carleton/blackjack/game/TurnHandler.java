@@ -4,27 +4,60 @@ import ca.carleton.blackjack.game.entity.AIPlayer;
 import ca.carleton.blackjack.game.entity.Player;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.stereotype.Service;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import static ca.carleton.blackjack.game.BlackJackGame.uniqueResult;
 import static java.util.Collections.shuffle;
-import static org.apache.commons.collections.CollectionUtils.isEmpty;
 
 /**
- * Handle the order of the turns.
+ * Handle the order of the turns. One per table.
+ * <p/>
+ * The order is set once a round and kept as a ring that is gone round until everyone is done. Players are taken out
+ * of the ring as soon as they STAY, BUST or get a seven card charlie, so the next player is always one step away -
+ * nobody is visited just to be skipped. Players are found in the ring by their seat.
  * <p/>
  * Created by Mike on 11/4/2015.
  */
-@Service
+@Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class TurnHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(TurnHandler.class);
 
-    private List<Player> ordering;
+    private static final int NONE = -1;
+
+    /**
+     * The players in turn order, null until a round starts.
+     */
+    private Player[] ordering;
+
+    /**
+     * The positions after and before each one, for players still in the ring.
+     */
+    private int[] next;
+
+    private int[] previous;
+
+    private boolean[] inRing;
+
+    /**
+     * Each seat's position in the ordering.
+     */
+    private int[] positions;
+
+    /**
+     * The position of whoever went last - the next player is the one after it.
+     */
+    private int current = NONE;
+
+    private int remaining;
 
     /**
      * Initialize a new round with the given players.
@@ -33,10 +66,10 @@ public class TurnHandler {
      */
     public void initializeNewRound(final List<Player> players) {
 
-        this.ordering = new ArrayList<>();
+        final List<Player> ordering = new ArrayList<>();
 
         // Add admin
-        this.ordering.addAll(players.stream()
+        ordering.addAll(players.stream()
                 .filter(Player::isAdmin)
                 .collect(Collectors.toList()));
 
@@ -46,64 +79,124 @@ public class TurnHandler {
                 .filter(player -> !player.isAdmin())
                 .collect(Collectors.toList());
         // Don't shuffle - ordering is who joined first (aka the admin goes first always...)
-        this.ordering.addAll(realPlayers);
+        ordering.addAll(realPlayers);
 
         // Add ai players next
         final List<Player> aiPlayers = players.stream()
                 .filter(player -> player instanceof AIPlayer && !((AIPlayer) player).isDealer())
                 .collect(Collectors.toList());
         shuffle(aiPlayers);
-        this.ordering.addAll(aiPlayers);
+        ordering.addAll(aiPlayers);
 
         // Add dealer
         final Player dealer = players.stream()
                 .filter(player -> player instanceof AIPlayer && ((AIPlayer) player).isDealer())
                 .collect(uniqueResult());
-        this.ordering.add(dealer);
-        LOG.info("New ordering: {}", this.ordering);
+        ordering.add(dealer);
+
+        final int size = ordering.size();
+        this.ordering = ordering.toArray(new Player[size]);
+        this.next = new int[size];
+        this.previous = new int[size];
+        this.inRing = new boolean[size];
+        int seats = 0;
+        for (final Player player : this.ordering) {
+            seats = Math.max(seats, player.getSeat() + 1);
+        }
+        this.positions = new int[seats];
+        Arrays.fill(this.positions, NONE);
+        for (int position = 0; position < size; position++) {
+            this.next[position] = (position + 1) % size;
+            this.previous[position] = (position + size - 1) % size;
+            this.inRing[position] = true;
+            if (this.ordering[position].getSeat() >= 0) {
+                this.positions[this.ordering[position].getSeat()] = position;
+            }
+        }
+        // So the first call to getNextPlayer gets the first player.
+        this.current = size - 1;
+        this.remaining = size;
+        LOG.info("New ordering: {}", ordering);
     }
 
+    /**
+     * Give a player's place in the order to the AI taking over from them.
+     *
+     * @param old the player who left.
+     * @param ai  the AI - it will be given the same seat.
+     * @return true if the player was in the order.
+     */
     public boolean replaceDisconnectedPlayer(final Player old, final AIPlayer ai) {
-        final int indexOf = this.ordering.indexOf(old);
-        if (indexOf == -1) {
-            LOG.warn("Warning! Player that disconnect was currently taking his turn - need to force a new result.");
+        final int position = this.positionOf(old);
+        if (position == NONE) {
+            LOG.warn("Warning! Player that disconnected isn't in the turn order.");
             return false;
         }
-        this.ordering.remove(indexOf);
+        this.ordering[position] = ai;
+        LOG.info("Replaced ordering is {}", Arrays.toString(this.ordering));
+        return true;
+    }
 
-        if (this.ordering.size() == 3) {
-            // should always be true - put them before [player 0, ai 1, <INSERT> 2 , DEALER]
-            this.ordering.add(2, ai);
+    /**
+     * Take a player who is done for the round out of the ring.
+     *
+     * @param player the player.
+     */
+    public void finished(final Player player) {
+        final int position = this.positionOf(player);
+        if (position == NONE || !this.inRing[position]) {
+            return;
+        }
+        this.next[this.previous[position]] = this.next[position];
+        this.previous[this.next[position]] = this.previous[position];
+        this.inRing[position] = false;
+        this.remaining--;
+        if (this.remaining == 0) {
+            this.current = NONE;
+        } else if (position == this.current) {
+            // Step back so the one after them is still next.
+            this.current = this.previous[position];
         }
-        LOG.info("Replaced ordering is {}", this.ordering);
-        return true;
     }
 
     /**
      * Get the next player to go.
      *
-     * @return the next player.
+     * @return the next player, or null if everyone is done for the round.
      */
     public Player getNextPlayer() {
-        if (this.ordering.size() == 0) {
-            throw new IllegalStateException("No players remaining!");
+        if (this.ordering == null) {
+            throw new IllegalStateException("No round has been started!");
+        }
+        if (this.remaining == 0) {
+            return null;
         }
-        return this.ordering.remove(0);
+        this.current = this.next[this.current];
+        return this.ordering[this.current];
     }
 
     public void clearAll() {
         this.ordering = null;
+        this.current = NONE;
+        this.remaining = 0;
     }
 
     public boolean isNextPlayerAI() {
-        return !isEmpty(this.ordering) && this.ordering.get(0) instanceof AIPlayer;
+        return this.remaining > 0 && this.ordering[this.next[this.current]] instanceof AIPlayer;
     }
 
     /**
      * true if we need to re-initialize the ordering.
      */
     public boolean requiresReInitialization() {
-        return this.ordering == null || this.ordering.size() == 0;
+        return this.ordering == null;
     }
-}
 
+    private int positionOf(final Player player) {
+        if (this.ordering == null || player.getSeat() < 0 || player.getSeat() >= this.positions.length) {
+            return NONE;
+        }
+        final int position = this.positions[player.getSeat()];
+        return position != NONE && this.ordering[position] == player ? position : NONE;
+    }
+}
@@ -1,5 +1,6 @@
 package ca.carleton.blackjack.game.entity;
 
+import ca.carleton.blackjack.game.StrategyTable;
 import org.springframework.web.socket.WebSocketSession;
 
 /**
@@ -11,6 +12,11 @@ public class AIPlayer extends Player {
 
     private boolean dealer;
 
+    /**
+     * The table this AI plays by, or null to play by the house rules.
+     */
+    private StrategyTable strategy;
+
     public AIPlayer(final WebSocketSession session) {
         super(session);
     }
@@ -23,4 +29,12 @@ public class AIPlayer extends Player {
         this.dealer = dealer;
     }
 
+    public StrategyTable getStrategy() {
+        return this.strategy;
+    }
+
+    public void setStrategy(final StrategyTable strategy) {
+        this.strategy = strategy;
+    }
+
 }
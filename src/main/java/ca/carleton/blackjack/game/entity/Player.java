@@ -5,7 +5,7 @@ import ca.carleton.blackjack.game.entity.card.Hand;
 import org.springframework.web.socket.WebSocketSession;
 
 /**
- * Represents a player.
+ * Represents a player. Players are only ever equal to themselves.
  * <p/>
  * Created by Mike on 10/6/2015.
  */
@@ -19,6 +19,11 @@ public class Player {
 
     private GameOption lastOption = null;
 
+    /**
+     * Where they sit at their table, or -1 until they're seated.
+     */
+    private int seat = -1;
+
     public Player(final WebSocketSession session) {
         this.session = session;
         this.hand = new Hand();
@@ -52,8 +57,11 @@ public class Player {
         this.lastOption = lastOption;
     }
 
-    @Override
-    public boolean equals(final Object rhs) {
-        return rhs instanceof Player && ((Player) rhs).getHand().equals(this.hand);
+    public int getSeat() {
+        return this.seat;
+    }
+
+    public void setSeat(final int seat) {
+        this.seat = seat;
     }
 }
@@ -3,31 +3,80 @@ package ca.carleton.blackjack.game.entity.card;
 /**
  * Represents a single playing card.
  * <p/>
+ * Cards are immutable and there is exactly one instance of each of the 52 cards, shared by every hand, shoe and
+ * table. Anything that depends on where a card is - whether it is face down, whether an ace counts as 1 - is kept
+ * by the {@link Hand} holding it.
+ * <p/>
  * Created by Mike on 10/27/2015.
  */
-public class Card {
+public final class Card {
+
+    public static final int NUMBER_OF_CARDS = 52;
+
+    // ACE_LOW is never a card of its own - aces are ACE_HIGH and lowered by the hand holding them.
+    private static final Rank[] RANKS = {
+            Rank.TWO,
+            Rank.THREE,
+            Rank.FOUR,
+            Rank.FIVE,
+            Rank.SIX,
+            Rank.SEVEN,
+            Rank.EIGHT,
+            Rank.NINE,
+            Rank.TEN,
+            Rank.JACK,
+            Rank.QUEEN,
+            Rank.KING,
+            Rank.ACE_HIGH
+    };
+
+    private static final Suit[] SUITS = Suit.values();
+
+    private static final Card[] CARDS = new Card[NUMBER_OF_CARDS];
+
+    static {
+        for (int i = 0; i < NUMBER_OF_CARDS; i++) {
+            CARDS[i] = new Card(RANKS[i / SUITS.length], SUITS[i % SUITS.length], i);
+        }
+    }
 
     private final Rank rank;
 
     private final Suit suit;
 
-    private boolean hidden;
+    private final int index;
 
-    public Card(final Rank rank, final Suit suit, final boolean hidden) {
+    private Card(final Rank rank, final Suit suit, final int index) {
         this.rank = rank;
         this.suit = suit;
-        this.hidden = hidden;
+        this.index = index;
     }
 
-    @Override
-    public boolean equals(final Object rhs) {
-        return rhs instanceof Card && ((Card) rhs).getRank() == this.rank && ((Card) rhs).getSuit() == this.suit;
+    /**
+     * Get the card with the given rank and suit. ACE_LOW gives back the (high) ace of that suit.
+     *
+     * @param rank the rank.
+     * @param suit the suit.
+     * @return the card.
+     */
+    public static Card of(final Rank rank, final Suit suit) {
+        final int rankIndex = rank == Rank.ACE_LOW ? RANKS.length - 1 : rank.ordinal() - Rank.TWO.ordinal();
+        return CARDS[rankIndex * SUITS.length + suit.ordinal()];
     }
 
+    /**
+     * Get the card at the given index.
+     *
+     * @param index 0 to 51.
+     * @return the card.
+     */
+    public static Card of(final int index) {
+        return CARDS[index];
+    }
 
     @Override
     public String toString() {
-        return this.rank + " of " + this.suit + String.format("[hidden:%b]", this.hidden);
+        return this.rank + " of " + this.suit;
     }
 
     /**
@@ -36,10 +85,11 @@ public class Card {
      * <span class="suit">&spades;</span>
      * </div>
      *
-     * @return the HTML representation of this card.
+     * @return the HTML representation of the face of this card. Messages use the copies cached by
+     * {@link ca.carleton.blackjack.game.message.CardFragments}.
      */
     public String toHTMLString() {
-        return this.isHidden() ? "<div class=\"card back\">*</div>" : String.format("<div class=\"card rank-%s %s\">\n" +
+        return String.format("<div class=\"card rank-%s %s\">\n" +
                         "                        <span class=\"rank\">%s</span>\n" +
                         "                        <span class=\"suit\">&%s;</span>\n" +
                         "                    </div>",
@@ -49,14 +99,6 @@ public class Card {
                 this.suit.getHtml());
     }
 
-    public boolean isHidden() {
-        return this.hidden;
-    }
-
-    public void setHidden(final boolean hidden) {
-        this.hidden = hidden;
-    }
-
     public Rank getRank() {
         return this.rank;
     }
@@ -64,4 +106,15 @@ public class Card {
     public Suit getSuit() {
         return this.suit;
     }
+
+    /**
+     * @return 0 to 51, unique per card.
+     */
+    public int getIndex() {
+        return this.index;
+    }
+
+    public boolean isAce() {
+        return this.rank == Rank.ACE_HIGH;
+    }
 }
@@ -1,19 +1,53 @@
 package ca.carleton.blackjack.game.entity.card;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * A Hand that a player has.
  * <p/>
+ * The cards themselves are shared flyweights, so the hand keeps track of which slots are face down and which aces
+ * have been lowered to 1 (one bit per slot).
+ * <p/>
+ * Totals are kept up to date as cards are added, revealed and aces lowered, so reading the value of a hand never
+ * walks the cards.
+ * <p/>
  * Created by Mike on 10/27/2015.
  */
 public class Hand {
 
+    /**
+     * One bit per slot, so no hand can hold more than this.
+     */
+    public static final int MAX_CARDS = Long.SIZE;
+
     private final List<Card> cards = new ArrayList<>();
 
+    private final List<Card> cardsView = Collections.unmodifiableList(this.cards);
+
+    private long hiddenSlots;
+
+    private long lowAceSlots;
+
+    private long aceSlots;
+
+    /**
+     * Every card counted at its lowest value (aces as 1).
+     */
+    private int hardTotal;
+
+    /**
+     * Aces still counted as 11.
+     */
+    private int highAces;
+
+    private int visibleTotal;
+
     private List<Card> splitCards;
 
+    private int splitTotal;
+
     private boolean splitHand;
 
     private HandStatus handStatus;
@@ -35,6 +69,26 @@ public class Hand {
     }
 
     public void addCard(final Card card) {
+        this.addCard(card, false);
+    }
+
+    public void addCard(final Card card, final boolean hidden) {
+        if (this.cards.size() == MAX_CARDS) {
+            throw new IllegalStateException("can't hold more than " + MAX_CARDS + " cards!");
+        }
+        final long slotBit = 1L << this.cards.size();
+        if (card.isAce()) {
+            this.aceSlots |= slotBit;
+            this.highAces++;
+            this.hardTotal += Rank.ACE_LOW.getValue();
+        } else {
+            this.hardTotal += card.getRank().getValue();
+        }
+        if (hidden) {
+            this.hiddenSlots |= slotBit;
+        } else {
+            this.visibleTotal += card.getRank().getValue();
+        }
         this.cards.add(card);
         if (this.isSevenCardCharlie(false)) {
             this.setHandStatus(HandStatus.SEVEN_CARD_CHARLIE);
@@ -46,13 +100,36 @@ public class Hand {
             throw new IllegalStateException("can't add to split hand! We didn't split yet!");
         }
         this.splitCards.add(card);
+        this.splitTotal += card.getRank().getValue();
         if (this.isSevenCardCharlie(true)) {
             this.setHandStatus(HandStatus.SEVEN_CARD_CHARLIE);
         }
     }
 
+    /**
+     * Copy the cards and state of another hand into this one.
+     *
+     * @param other the hand to copy.
+     */
+    public void copyFrom(final Hand other) {
+        this.clearHand();
+        this.cards.addAll(other.cards);
+        this.hiddenSlots = other.hiddenSlots;
+        this.lowAceSlots = other.lowAceSlots;
+        this.aceSlots = other.aceSlots;
+        this.hardTotal = other.hardTotal;
+        this.highAces = other.highAces;
+        this.visibleTotal = other.visibleTotal;
+        if (other.isSplitHand()) {
+            this.splitHand();
+            this.splitCards.addAll(other.splitCards);
+            this.splitTotal = other.splitTotal;
+        }
+        this.handStatus = other.handStatus;
+    }
+
     public List<Card> getCards() {
-        return this.cards;
+        return this.cardsView;
     }
 
     public List<Card> getSplitCards() {
@@ -61,21 +138,130 @@ public class Hand {
 
     public void clearHand() {
         this.cards.clear();
+        this.hiddenSlots = 0L;
+        this.lowAceSlots = 0L;
+        this.aceSlots = 0L;
+        this.hardTotal = 0;
+        this.highAces = 0;
+        this.visibleTotal = 0;
+    }
+
+    /**
+     * Whether the card in the given slot is face down.
+     */
+    public boolean isHidden(final int slot) {
+        return (this.hiddenSlots & (1L << slot)) != 0L;
+    }
+
+    /**
+     * Turn every card face up.
+     */
+    public void reveal() {
+        this.hiddenSlots = 0L;
+        this.visibleTotal = (int) this.getHandValue();
+    }
+
+    /**
+     * Whether the card in the given slot is an ace counted as 1.
+     */
+    public boolean isLowAce(final int slot) {
+        return (this.lowAceSlots & (1L << slot)) != 0L;
+    }
+
+    /**
+     * Count the ace in the given slot as 1 instead of 11.
+     *
+     * @param slot the slot.
+     */
+    public void lowerAce(final int slot) {
+        final long slotBit = 1L << slot;
+        if ((this.aceSlots & slotBit) == 0L) {
+            throw new IllegalArgumentException("only aces can be lowered!");
+        }
+        if ((this.lowAceSlots & slotBit) != 0L) {
+            return;
+        }
+        this.lowAceSlots |= slotBit;
+        this.highAces--;
+        if ((this.hiddenSlots & slotBit) == 0L) {
+            this.visibleTotal -= Rank.ACE_HIGH.getValue() - Rank.ACE_LOW.getValue();
+        }
+    }
+
+    /**
+     * Count the first ace that is still 11 as 1 instead.
+     *
+     * @return true if there was an ace to lower.
+     */
+    public boolean lowerAce() {
+        if (this.highAces == 0) {
+            return false;
+        }
+        this.lowerAce(Long.numberOfTrailingZeros(this.aceSlots & ~this.lowAceSlots));
+        return true;
+    }
+
+    /**
+     * Get the value of the card in the given slot, taking lowered aces into account.
+     */
+    public int getCardValue(final int slot) {
+        return this.isLowAce(slot) ? Rank.ACE_LOW.getValue() : this.cards.get(slot).getRank().getValue();
+    }
+
+    /**
+     * Get the cards that are face up.
+     *
+     * @return a new list of the visible cards.
+     */
+    public List<Card> getVisibleCards() {
+        final List<Card> visible = new ArrayList<>(this.cards.size());
+        for (int slot = 0; slot < this.cards.size(); slot++) {
+            if (!this.isHidden(slot)) {
+                visible.add(this.cards.get(slot));
+            }
+        }
+        return visible;
     }
 
     public long getHandValue() {
-        return this.handValue(false);
+        return this.hardTotal + this.highAces * (Rank.ACE_HIGH.getValue() - Rank.ACE_LOW.getValue());
     }
 
     public long getVisibleHandValue() {
-        return this.cards.stream()
-                .filter(card -> !card.isHidden())
-                .mapToInt(card -> card.getRank().getValue())
-                .sum();
+        return this.visibleTotal;
     }
 
     public long getSplitHandValue() {
-        return this.handValue(true);
+        return this.splitTotal;
+    }
+
+    /**
+     * @return the value with every ace counted as 1.
+     */
+    public int getHardValue() {
+        return this.hardTotal;
+    }
+
+    /**
+     * @return true if at least one ace is still being counted as 11.
+     */
+    public boolean isSoft() {
+        return this.highAces > 0;
+    }
+
+    public boolean isBust() {
+        return this.getHandValue() > 21L;
+    }
+
+    /**
+     * @return how many aces are in the hand, whatever they are counted as.
+     */
+    public int getAceCount() {
+        return Long.bitCount(this.aceSlots);
+    }
+
+    public int size() {
+        return this.cards.size();
     }
 
     public boolean isSplitHand() {
@@ -90,18 +276,6 @@ public class Hand {
         this.handStatus = handStatus;
     }
 
-    private int handValue(final boolean forSplitHand) {
-        if (forSplitHand) {
-            return this.splitCards.stream()
-                    .mapToInt(card -> card.getRank().getValue())
-                    .sum();
-        } else {
-            return this.cards.stream()
-                    .mapToInt(card -> card.getRank().getValue())
-                    .sum();
-        }
-    }
-
     @Override
     public boolean equals(final Object rhs) {
         if (rhs instanceof Hand) {
@@ -0,0 +1,107 @@
+package ca.carleton.blackjack.game.entity.packed;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+
+/**
+ * A card packed into a byte: rank (0 = TWO ... 12 = ACE) times four, plus the suit ordinal, in the low six bits. That
+ * is the same number as {@link Card#getIndex()}, so converting either way is free.
+ * <p/>
+ * The top two bits belong to the slot the card is dealt into: {@link #HIDDEN} if it is face down and {@link #LOW_ACE}
+ * if it is an ace counted as 1.
+ * <p/>
+ * Created by Mike on 11/23/2015.
+ */
+public final class PackedCard {
+
+    public static final int SUITS = Suit.values().length;
+
+    public static final int ACE_RANK = 12;
+
+    public static final int HIDDEN = 0x40;
+
+    public static final int LOW_ACE = 0x80;
+
+    private static final int INDEX = 0x3f;
+
+    private static final byte[] VALUES = new byte[Card.NUMBER_OF_CARDS];
+
+    static {
+        for (int i = 0; i < Card.NUMBER_OF_CARDS; i++) {
+            VALUES[i] = (byte) Card.of(i).getRank().getValue();
+        }
+    }
+
+    private PackedCard() {
+    }
+
+    public static byte encode(final Card card) {
+        return (byte) card.getIndex();
+    }
+
+    public static byte encode(final Card card, final boolean hidden) {
+        return hidden ? hide(encode(card)) : encode(card);
+    }
+
+    public static byte encode(final Rank rank, final Suit suit) {
+        return encode(Card.of(rank, suit));
+    }
+
+    public static Card decode(final byte card) {
+        return Card.of(index(card));
+    }
+
+    public static int index(final byte card) {
+        return card & INDEX;
+    }
+
+    /**
+     * @return 0 (TWO) to 12 (ACE).
+     */
+    public static int rank(final byte card) {
+        return index(card) / SUITS;
+    }
+
+    public static int suit(final byte card) {
+        return index(card) % SUITS;
+    }
+
+    public static boolean isAce(final byte card) {
+        return rank(card) == ACE_RANK;
+    }
+
+    public static boolean isHidden(final byte card) {
+        return (card & HIDDEN) != 0;
+    }
+
+    public static boolean isLowAce(final byte card) {
+        return (card & LOW_ACE) != 0;
+    }
+
+    public static byte hide(final byte card) {
+        return (byte) (card | HIDDEN);
+    }
+
+    public static byte show(final byte card) {
+        return (byte) (card & ~HIDDEN);
+    }
+
+    /**
+     * @return the card with the same slot bits, but counted as 1 - only aces can be lowered.
+     */
+    public static byte lower(final byte card) {
+        if (!isAce(card)) {
+            throw new IllegalArgumentException("only aces can be lowered!");
+        }
+        return (byte) (card | LOW_ACE);
+    }
+
+    /**
+     * @return the value of the card, with aces as 11 unless they've been lowered.
+     */
+    public static int value(final byte card) {
+        return isLowAce(card) ? Rank.ACE_LOW.getValue() : VALUES[index(card)];
+    }
+
+}
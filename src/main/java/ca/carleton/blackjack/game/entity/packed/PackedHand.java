@@ -0,0 +1,125 @@
+package ca.carleton.blackjack.game.entity.packed;
+
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.Rank;
+
+/**
+ * A hand's cached totals packed into a long. The card bytes themselves live next to it (see {@link PackedTable}), and
+ * carry which slots are face down and which aces were lowered (see {@link PackedCard}).
+ * <pre>
+ * bits  0-6   number of cards
+ * bits  7-16  hard total (aces as 1)
+ * bits 17-23  aces still counted as 11
+ * bits 24-33  total of the face up cards
+ * </pre>
+ * Every method returns a new value rather than changing anything, and none of them look at the other cards.
+ * <p/>
+ * Created by Mike on 11/23/2015.
+ */
+public final class PackedHand {
+
+    /**
+     * The same as {@link Hand}, so every hand the game deals can be packed.
+     */
+    public static final int MAX_CARDS = Hand.MAX_CARDS;
+
+    public static final long EMPTY = 0L;
+
+    private static final int COUNT_SHIFT = 0;
+
+    private static final int HARD_SHIFT = 7;
+
+    private static final int HIGH_ACES_SHIFT = 17;
+
+    private static final int VISIBLE_SHIFT = 24;
+
+    private static final long COUNT = 0x7fL;
+
+    private static final long TOTAL = 0x3ffL;
+
+    private static final int ACE_DIFFERENCE = Rank.ACE_HIGH.getValue() - Rank.ACE_LOW.getValue();
+
+    private PackedHand() {
+    }
+
+    /**
+     * Add a card in the next slot, face down if the card byte says so.
+     *
+     * @param hand the hand.
+     * @param card the packed card.
+     * @return the new hand.
+     */
+    public static long add(final long hand, final byte card) {
+        if (count(hand) == MAX_CARDS) {
+            throw new IllegalStateException("can't hold more than " + MAX_CARDS + " cards!");
+        }
+        final int value = PackedCard.value(card);
+        long result = hand + (1L << COUNT_SHIFT);
+        if (PackedCard.isAce(card)) {
+            result += (long) Rank.ACE_LOW.getValue() << HARD_SHIFT;
+            if (!PackedCard.isLowAce(card)) {
+                result += 1L << HIGH_ACES_SHIFT;
+            }
+        } else {
+            result += (long) value << HARD_SHIFT;
+        }
+        if (!PackedCard.isHidden(card)) {
+            result += (long) value << VISIBLE_SHIFT;
+        }
+        return result;
+    }
+
+    /**
+     * Turn every card face up.
+     */
+    public static long reveal(final long hand) {
+        return (hand & ~(TOTAL << VISIBLE_SHIFT)) | ((long) value(hand) << VISIBLE_SHIFT);
+    }
+
+    /**
+     * Count one more ace as 1 instead of 11.
+     *
+     * @param hand   the hand.
+     * @param hidden whether that ace is face down.
+     * @return the new hand.
+     */
+    public static long lowerAce(final long hand, final boolean hidden) {
+        if (highAces(hand) == 0) {
+            throw new IllegalStateException("no ace left to lower!");
+        }
+        long result = hand - (1L << HIGH_ACES_SHIFT);
+        if (!hidden) {
+            result -= (long) ACE_DIFFERENCE << VISIBLE_SHIFT;
+        }
+        return result;
+    }
+
+    public static int count(final long hand) {
+        return (int) ((hand >>> COUNT_SHIFT) & COUNT);
+    }
+
+    public static int hardValue(final long hand) {
+        return (int) ((hand >>> HARD_SHIFT) & TOTAL);
+    }
+
+    public static int highAces(final long hand) {
+        return (int) ((hand >>> HIGH_ACES_SHIFT) & COUNT);
+    }
+
+    public static int value(final long hand) {
+        return hardValue(hand) + highAces(hand) * ACE_DIFFERENCE;
+    }
+
+    public static int visibleValue(final long hand) {
+        return (int) ((hand >>> VISIBLE_SHIFT) & TOTAL);
+    }
+
+    public static boolean isSoft(final long hand) {
+        return highAces(hand) > 0;
+    }
+
+    public static boolean isBust(final long hand) {
+        return value(hand) > 21;
+    }
+
+}
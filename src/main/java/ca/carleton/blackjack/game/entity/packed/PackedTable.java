@@ -0,0 +1,330 @@
+package ca.carleton.blackjack.game.entity.packed;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+
+import java.util.List;
+
+/**
+ * Every seat at a table kept in primitive arrays indexed by seat, for simulation and analytics code that would rather
+ * not chase pointers through {@link Player} and {@link Hand}.
+ * <p/>
+ * Seat {@code s} holds its cards in {@code cards[s * MAX_CARDS ...]} (see {@link PackedCard}) and its cached totals
+ * in {@code hands[s]} (see {@link PackedHand}), and the second hand of a split the same way in {@code splitCards}
+ * and {@code splitHands}. Use {@link #from(List)} and {@link #applyTo(int, Player)} to move between this and the
+ * objects the socket layer works with.
+ * <p/>
+ * Created by Mike on 11/23/2015.
+ */
+public class PackedTable {
+
+    public static final int MAX_CARDS = PackedHand.MAX_CARDS;
+
+    private static final byte NONE = -1;
+
+    private static final int REAL = 1;
+
+    private static final int ADMIN = 1 << 1;
+
+    private static final int DEALER = 1 << 2;
+
+    private static final int SPLIT = 1 << 3;
+
+    private static final GameOption[] OPTIONS = GameOption.values();
+
+    private static final HandStatus[] STATUSES = HandStatus.values();
+
+    private final int seats;
+
+    private final byte[] cards;
+
+    private final long[] hands;
+
+    private final byte[] splitCards;
+
+    private final long[] splitHands;
+
+    private final byte[] lastOptions;
+
+    private final byte[] statuses;
+
+    private final byte[] flags;
+
+    public PackedTable(final int seats) {
+        this.seats = seats;
+        this.cards = new byte[seats * MAX_CARDS];
+        this.hands = new long[seats];
+        this.splitCards = new byte[seats * MAX_CARDS];
+        this.splitHands = new long[seats];
+        this.lastOptions = new byte[seats];
+        this.statuses = new byte[seats];
+        this.flags = new byte[seats];
+        this.clear();
+    }
+
+    /**
+     * Pack the given players, one seat each in list order.
+     *
+     * @param players the players.
+     * @return the packed table.
+     */
+    public static PackedTable from(final List<Player> players) {
+        final PackedTable table = new PackedTable(players.size());
+        for (int seat = 0; seat < players.size(); seat++) {
+            table.store(seat, players.get(seat));
+        }
+        return table;
+    }
+
+    /**
+     * Empty every seat's hand and forget their options - the seats themselves stay.
+     */
+    public void clear() {
+        for (int seat = 0; seat < this.seats; seat++) {
+            this.clearHand(seat);
+        }
+    }
+
+    public void clearHand(final int seat) {
+        this.hands[seat] = PackedHand.EMPTY;
+        this.splitHands[seat] = PackedHand.EMPTY;
+        this.flags[seat] &= ~SPLIT;
+        this.lastOptions[seat] = NONE;
+        this.statuses[seat] = NONE;
+    }
+
+    /**
+     * Copy a player into the given seat.
+     *
+     * @param seat   the seat.
+     * @param player the player.
+     */
+    public void store(final int seat, final Player player) {
+        final Hand hand = player.getHand();
+        long packed = PackedHand.EMPTY;
+        for (int slot = 0; slot < hand.size(); slot++) {
+            byte card = PackedCard.encode(hand.getCards().get(slot), hand.isHidden(slot));
+            if (hand.isLowAce(slot)) {
+                card = PackedCard.lower(card);
+            }
+            this.cards[seat * MAX_CARDS + slot] = card;
+            packed = PackedHand.add(packed, card);
+        }
+        this.hands[seat] = packed;
+        long split = PackedHand.EMPTY;
+        if (hand.isSplitHand()) {
+            for (final Card card : hand.getSplitCards()) {
+                this.splitCards[seat * MAX_CARDS + PackedHand.count(split)] = PackedCard.encode(card);
+                split = PackedHand.add(split, PackedCard.encode(card));
+            }
+        }
+        this.splitHands[seat] = split;
+        this.lastOptions[seat] = player.getLastOption() == null ? NONE : (byte) player.getLastOption().ordinal();
+        this.statuses[seat] = hand.getHandStatus() == null ? NONE : (byte) hand.getHandStatus().ordinal();
+        int seatFlags = 0;
+        if (player.isReal()) {
+            seatFlags |= REAL;
+        }
+        if (player.isAdmin()) {
+            seatFlags |= ADMIN;
+        }
+        if (player instanceof AIPlayer && ((AIPlayer) player).isDealer()) {
+            seatFlags |= DEALER;
+        }
+        if (hand.isSplitHand()) {
+            seatFlags |= SPLIT;
+        }
+        this.flags[seat] = (byte) seatFlags;
+    }
+
+    /**
+     * Copy the given seat back onto a player - their hand, status and last option are replaced.
+     *
+     * @param seat   the seat.
+     * @param player the player.
+     */
+    public void applyTo(final int seat, final Player player) {
+        player.getHand().copyFrom(this.toHand(seat));
+        player.setLastOption(this.getLastOption(seat));
+    }
+
+    /**
+     * Build a new hand from the given seat.
+     *
+     * @param seat the seat.
+     * @return the hand.
+     */
+    public Hand toHand(final int seat) {
+        final Hand hand = new Hand();
+        final long packed = this.hands[seat];
+        for (int slot = 0; slot < PackedHand.count(packed); slot++) {
+            final byte card = this.cards[seat * MAX_CARDS + slot];
+            hand.addCard(PackedCard.decode(card), PackedCard.isHidden(card));
+            if (PackedCard.isLowAce(card)) {
+                hand.lowerAce(slot);
+            }
+        }
+        if (this.isSplit(seat)) {
+            hand.splitHand();
+            for (int slot = 0; slot < PackedHand.count(this.splitHands[seat]); slot++) {
+                hand.addSplitCard(PackedCard.decode(this.splitCards[seat * MAX_CARDS + slot]));
+            }
+        }
+        hand.setHandStatus(this.getStatus(seat));
+        return hand;
+    }
+
+    /**
+     * Build a new AI player from the given seat. Real players can't be rebuilt (there is no session) - use
+     * {@link #applyTo(int, Player)} for them.
+     *
+     * @param seat the seat.
+     * @return the AI.
+     */
+    public AIPlayer toAIPlayer(final int seat) {
+        final AIPlayer ai = new AIPlayer(null);
+        ai.setDealer(this.isDealer(seat));
+        this.applyTo(seat, ai);
+        return ai;
+    }
+
+    /**
+     * Deal a card to the given seat.
+     *
+     * @param seat   the seat.
+     * @param card   the packed card.
+     * @param hidden whether it is dealt face down.
+     */
+    public void deal(final int seat, final byte card, final boolean hidden) {
+        final long hand = this.hands[seat];
+        final byte dealt = hidden ? PackedCard.hide(card) : PackedCard.show(card);
+        this.cards[seat * MAX_CARDS + PackedHand.count(hand)] = dealt;
+        this.hands[seat] = PackedHand.add(hand, dealt);
+    }
+
+    public void deal(final int seat, final Card card, final boolean hidden) {
+        this.deal(seat, PackedCard.encode(card), hidden);
+    }
+
+    /**
+     * Split the given seat's hand - cards for the second hand go in with {@link #dealSplit(int, byte)}.
+     */
+    public void split(final int seat) {
+        this.flags[seat] |= SPLIT;
+    }
+
+    public void dealSplit(final int seat, final byte card) {
+        if (!this.isSplit(seat)) {
+            throw new IllegalStateException("can't add to split hand! We didn't split yet!");
+        }
+        final long hand = this.splitHands[seat];
+        this.splitCards[seat * MAX_CARDS + PackedHand.count(hand)] = PackedCard.show(card);
+        this.splitHands[seat] = PackedHand.add(hand, PackedCard.show(card));
+    }
+
+    public void reveal(final int seat) {
+        final int first = seat * MAX_CARDS;
+        for (int slot = first; slot < first + PackedHand.count(this.hands[seat]); slot++) {
+            this.cards[slot] = PackedCard.show(this.cards[slot]);
+        }
+        this.hands[seat] = PackedHand.reveal(this.hands[seat]);
+    }
+
+    /**
+     * Count the first ace that is still 11 as 1 instead.
+     *
+     * @return true if there was an ace to lower.
+     */
+    public boolean lowerAce(final int seat) {
+        if (PackedHand.highAces(this.hands[seat]) == 0) {
+            return false;
+        }
+        final int first = seat * MAX_CARDS;
+        int slot = first;
+        while (!PackedCard.isAce(this.cards[slot]) || PackedCard.isLowAce(this.cards[slot])) {
+            slot++;
+        }
+        this.cards[slot] = PackedCard.lower(this.cards[slot]);
+        this.hands[seat] = PackedHand.lowerAce(this.hands[seat], PackedCard.isHidden(this.cards[slot]));
+        return true;
+    }
+
+    /**
+     * @return the packed card in the given slot, with its face down and lowered ace bits.
+     */
+    public byte getCard(final int seat, final int slot) {
+        return this.cards[seat * MAX_CARDS + slot];
+    }
+
+    public long getHand(final int seat) {
+        return this.hands[seat];
+    }
+
+    public int getValue(final int seat) {
+        return PackedHand.value(this.hands[seat]);
+    }
+
+    public int getVisibleValue(final int seat) {
+        return PackedHand.visibleValue(this.hands[seat]);
+    }
+
+    public int getCardCount(final int seat) {
+        return PackedHand.count(this.hands[seat]);
+    }
+
+    public byte getSplitCard(final int seat, final int slot) {
+        return this.splitCards[seat * MAX_CARDS + slot];
+    }
+
+    /**
+     * @return the split hand's value, with every ace as 11 (the same as {@link Hand#getSplitHandValue()}).
+     */
+    public int getSplitValue(final int seat) {
+        return PackedHand.value(this.splitHands[seat]);
+    }
+
+    public int getSplitCardCount(final int seat) {
+        return PackedHand.count(this.splitHands[seat]);
+    }
+
+    public GameOption getLastOption(final int seat) {
+        return this.lastOptions[seat] == NONE ? null : OPTIONS[this.lastOptions[seat]];
+    }
+
+    public void setLastOption(final int seat, final GameOption option) {
+        this.lastOptions[seat] = option == null ? NONE : (byte) option.ordinal();
+    }
+
+    public HandStatus getStatus(final int seat) {
+        return this.statuses[seat] == NONE ? null : STATUSES[this.statuses[seat]];
+    }
+
+    public void setStatus(final int seat, final HandStatus status) {
+        this.statuses[seat] = status == null ? NONE : (byte) status.ordinal();
+    }
+
+    public boolean isReal(final int seat) {
+        return (this.flags[seat] & REAL) != 0;
+    }
+
+    public boolean isAdmin(final int seat) {
+        return (this.flags[seat] & ADMIN) != 0;
+    }
+
+    public boolean isDealer(final int seat) {
+        return (this.flags[seat] & DEALER) != 0;
+    }
+
+    public boolean isSplit(final int seat) {
+        return (this.flags[seat] & SPLIT) != 0;
+    }
+
+    public int getSeats() {
+        return this.seats;
+    }
+
+}
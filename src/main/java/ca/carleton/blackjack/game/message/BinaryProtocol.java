@@ -0,0 +1,116 @@
+package ca.carleton.blackjack.game.message;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+
+/**
+ * The binary version of the messages we send, for clients that ask for it when they connect.
+ * <p/>
+ * A frame is any number of records, each one {@code [opcode][length][payload]}: the opcode is one byte (see
+ * {@link Message#getOpcode()}) and the length is two bytes, big endian. Card messages carry numbers instead of HTML
+ * and the client draws the cards itself:
+ * <pre>
+ * ADD_PLAYER_CARD, ADD_DEALER_CARD    [card]
+ * ADD_OTHER_PLAYER_CARD               [card][index][id...]
+ * REVEAL_DEALER_CARD                  [card][slot]
+ * REVEAL_OTHER_PLAYER_CARD            [card][index][slot]
+ * PLAYER_VALUE, DEALER_VALUE          [value]
+ * OTHER_VALUE                         [index][value]
+ * </pre>
+ * A card is its {@link Card#getIndex()}, or {@link Card#NUMBER_OF_CARDS} when it is face down. Every other message
+ * is just its sentence in UTF-8 - the client adds the time and sender.
+ * <p/>
+ * Clients only ever send text, in both protocols.
+ * <p/>
+ * Created by Mike on 11/28/2015.
+ */
+public final class BinaryProtocol {
+
+    /**
+     * The WebSocket sub-protocol clients ask for to get binary frames.
+     */
+    public static final String NAME = "blackjack-binary";
+
+    public static final int CARD_BACK = Card.NUMBER_OF_CARDS;
+
+    private static final int HEADER_LENGTH = 3;
+
+    private static final int MAX_PAYLOAD = 0xFFFF;
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * @param session the session.
+     * @return whether the session asked for the binary protocol.
+     */
+    public static boolean isBinary(final WebSocketSession session) {
+        return NAME.equals(session.getAcceptedProtocol());
+    }
+
+    /**
+     * Encode a message as a single record.
+     *
+     * @param type      the message.
+     * @param arguments its arguments - numbers for card messages, see above.
+     * @return the record.
+     */
+    static byte[] encode(final Message type, final Object... arguments) {
+        switch (type) {
+            case ADD_PLAYER_CARD:
+            case ADD_DEALER_CARD:
+            case PLAYER_VALUE:
+            case DEALER_VALUE:
+                return record(type, bytes(arguments, 1), null);
+            case ADD_OTHER_PLAYER_CARD:
+                return record(type, bytes(arguments, 2), String.valueOf(arguments[2]));
+            case REVEAL_DEALER_CARD:
+            case OTHER_VALUE:
+                return record(type, bytes(arguments, 2), null);
+            case REVEAL_OTHER_PLAYER_CARD:
+                return record(type, bytes(arguments, 3), null);
+            default:
+                return record(type, new byte[0], sentence(type, arguments));
+        }
+    }
+
+    /**
+     * The message's text without its |KEY| prefix.
+     */
+    private static String sentence(final Message type, final Object... arguments) {
+        final String content = type.format(arguments);
+        return content.substring(content.indexOf('|', 1) + 1);
+    }
+
+    private static byte[] bytes(final Object[] arguments, final int count) {
+        final byte[] bytes = new byte[count];
+        for (int i = 0; i < count; i++) {
+            final long value = ((Number) arguments[i]).longValue();
+            if (value < 0 || value > 0xFF) {
+                throw new IllegalArgumentException("Can't fit " + value + " in a byte.");
+            }
+            bytes[i] = (byte) value;
+        }
+        return bytes;
+    }
+
+    private static byte[] record(final Message type, final byte[] fixed, final String text) {
+        final byte[] utf8 = text == null ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+        final int length = fixed.length + utf8.length;
+        if (length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Message is too long for a record: " + length + " bytes.");
+        }
+        final byte[] record = new byte[HEADER_LENGTH + length];
+        record[0] = (byte) type.getOpcode();
+        record[1] = (byte) (length >>> 8);
+        record[2] = (byte) length;
+        System.arraycopy(fixed, 0, record, HEADER_LENGTH, fixed.length);
+        System.arraycopy(utf8, 0, record, HEADER_LENGTH + fixed.length, utf8.length);
+        return record;
+    }
+
+}
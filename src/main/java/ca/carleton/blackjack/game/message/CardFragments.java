@@ -0,0 +1,121 @@
+package ca.carleton.blackjack.game.message;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+
+/**
+ * Card messages, with their text bodies rendered once for every card face and the card back.
+ * <p/>
+ * Indexed by {@link Card#getIndex()}, with the card back in the last slot. Building a card message's text is then a
+ * lookup (or one append, for other players' cards) instead of formatting the card's HTML every time. The binary
+ * protocol only needs the index.
+ * <p/>
+ * Created by Mike on 11/22/2015.
+ */
+public final class CardFragments {
+
+    private static final int BACK = BinaryProtocol.CARD_BACK;
+
+    private static final String BACK_HTML = "<div class=\"card back\">*</div>";
+
+    private static final String[] PLAYER_CARDS = new String[Card.NUMBER_OF_CARDS + 1];
+
+    private static final String[] DEALER_CARDS = new String[Card.NUMBER_OF_CARDS + 1];
+
+    // Everything up to (and including) the separator before the other player's index.
+    private static final String[] OTHER_PLAYER_CARDS = new String[Card.NUMBER_OF_CARDS + 1];
+
+    // Reveals are always of a face, so these have no card back. Both end with the separator before the next value.
+    private static final String[] REVEAL_DEALER_CARDS = new String[Card.NUMBER_OF_CARDS];
+
+    private static final String[] REVEAL_OTHER_PLAYER_CARDS = new String[Card.NUMBER_OF_CARDS];
+
+    static {
+        for (int i = 0; i <= Card.NUMBER_OF_CARDS; i++) {
+            final String html = i == BACK ? BACK_HTML : Card.of(i).toHTMLString();
+            PLAYER_CARDS[i] = Message.ADD_PLAYER_CARD.format(html);
+            DEALER_CARDS[i] = Message.ADD_DEALER_CARD.format(html);
+            OTHER_PLAYER_CARDS[i] = Message.ADD_OTHER_PLAYER_CARD.format(html, "", "")
+                    .replaceFirst("\\|$", "");
+            if (i != BACK) {
+                REVEAL_DEALER_CARDS[i] = Message.REVEAL_DEALER_CARD.format(html, "");
+                REVEAL_OTHER_PLAYER_CARDS[i] = Message.REVEAL_OTHER_PLAYER_CARD.format(html, "", "")
+                        .replaceFirst("\\|$", "");
+            }
+        }
+    }
+
+    private CardFragments() {
+    }
+
+    /**
+     * An ADD_PLAYER_CARD message. Players always see their own cards face up.
+     */
+    public static GameMessage playerCard(final Card card) {
+        return new GameMessage(Message.ADD_PLAYER_CARD, PLAYER_CARDS[card.getIndex()], card.getIndex());
+    }
+
+    /**
+     * An ADD_DEALER_CARD message for the card in the given slot.
+     */
+    public static GameMessage dealerCard(final Hand hand, final int slot) {
+        final int index = indexOf(hand, slot);
+        return new GameMessage(Message.ADD_DEALER_CARD, DEALER_CARDS[index], index);
+    }
+
+    /**
+     * An ADD_OTHER_PLAYER_CARD message for the card in the given slot.
+     *
+     * @param hand  the other player's hand.
+     * @param slot  the slot.
+     * @param index which 'other player' area the card goes in.
+     * @param id    the other player's id.
+     */
+    public static GameMessage otherPlayerCard(final Hand hand, final int slot, final int index, final String id) {
+        final int card = indexOf(hand, slot);
+        final String prefix = OTHER_PLAYER_CARDS[card];
+        return new GameMessage(Message.ADD_OTHER_PLAYER_CARD, new StringBuilder(prefix.length() + id.length() + 4)
+                .append(prefix)
+                .append(index)
+                .append('|')
+                .append(id)
+                .toString(), card, index, id);
+    }
+
+    /**
+     * A REVEAL_DEALER_CARD message for the (now face up) card in the given slot.
+     */
+    public static GameMessage revealDealerCard(final Hand hand, final int slot) {
+        final int card = hand.getCards().get(slot).getIndex();
+        final String prefix = REVEAL_DEALER_CARDS[card];
+        return new GameMessage(Message.REVEAL_DEALER_CARD, new StringBuilder(prefix.length() + 2)
+                .append(prefix)
+                .append(slot)
+                .toString(), card, slot);
+    }
+
+    /**
+     * A REVEAL_OTHER_PLAYER_CARD message for the (now face up) card in the given slot.
+     *
+     * @param hand  the other player's hand.
+     * @param slot  the slot.
+     * @param index which 'other player' area the card is in.
+     */
+    public static GameMessage revealOtherPlayerCard(final Hand hand, final int slot, final int index) {
+        final int card = hand.getCards().get(slot).getIndex();
+        final String prefix = REVEAL_OTHER_PLAYER_CARDS[card];
+        return new GameMessage(Message.REVEAL_OTHER_PLAYER_CARD, new StringBuilder(prefix.length() + 4)
+                .append(prefix)
+                .append(index)
+                .append('|')
+                .append(slot)
+                .toString(), card, index, slot);
+    }
+
+    private static int indexOf(final Hand hand, final int slot) {
+        return hand.isHidden(slot) ? BACK : hand.getCards().get(slot).getIndex();
+    }
+
+}
@@ -0,0 +1,63 @@
+package ca.carleton.blackjack.game.message;
+
+import org.springframework.web.socket.TextMessage;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+
+/**
+ * A message from the server to a player, before it is known which protocol the player speaks.
+ * <p/>
+ * Each encoding is only built the first time it is asked for and then kept, so a message broadcast to a table is
+ * formatted once per protocol rather than once per player. Messages are built and sent on a table's mailbox, so
+ * nothing here is locked.
+ * <p/>
+ * Created by Mike on 11/28/2015.
+ */
+public final class GameMessage {
+
+    private final Message type;
+
+    /**
+     * The finished text body, or null to format the message's content with the arguments.
+     */
+    private final String body;
+
+    private final Object[] arguments;
+
+    private TextMessage text;
+
+    private byte[] record;
+
+    GameMessage(final Message type, final String body, final Object... arguments) {
+        this.type = type;
+        this.body = body;
+        this.arguments = arguments;
+    }
+
+    public Message getType() {
+        return this.type;
+    }
+
+    /**
+     * @return the message for the text protocol.
+     */
+    public TextMessage toText() {
+        if (this.text == null) {
+            this.text = (this.body != null
+                    ? MessageUtil.prerendered(this.body)
+                    : MessageUtil.message(this.type, this.arguments)).build();
+        }
+        return this.text;
+    }
+
+    /**
+     * @return the message as one record of the binary protocol. Don't change the array.
+     */
+    public byte[] toRecord() {
+        if (this.record == null) {
+            this.record = BinaryProtocol.encode(this.type, this.arguments);
+        }
+        return this.record;
+    }
+
+}
@@ -2,26 +2,46 @@ package ca.carleton.blackjack.game.message;
 
 import org.springframework.web.socket.TextMessage;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-
-import static org.apache.commons.lang3.ArrayUtils.isEmpty;
+import java.time.LocalTime;
 
 /**
  * Helper to make a formatted message to send.
  * <p/>
+ * Safe to use from any thread. Messages are built in a buffer kept per thread, the content's template is parsed once
+ * (for {@link MessageUtil.Message}s, when the enum loads) and the "HH:mm" stamp is worked out at most once a second.
+ * <p/>
  * Created by Mike on 10/7/2015.
  */
 public class MessageBuilder {
 
-    private static final SimpleDateFormat formatter = new SimpleDateFormat("HH:mm");
+    /**
+     * Buffers that grew past this (a very long message) aren't kept around.
+     */
+    private static final int MAX_KEPT_BUFFER = 8 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+    private static volatile Stamp stamp = new Stamp(-1L, "");
+
+    /**
+     * Free text from {@link #message(String)}. It may hold a stray %, so it's only parsed as a template once there
+     * are arguments to fill in - without any it's sent exactly as written.
+     */
+    private final String text;
+
+    private MessageTemplate template;
 
-    private String message;
+    private Object[] arguments;
 
     private String sender;
 
-    MessageBuilder(final String message) {
-        this.message = message;
+    MessageBuilder(final MessageTemplate template) {
+        this.text = null;
+        this.template = template;
+    }
+
+    private MessageBuilder(final String text) {
+        this.text = text;
     }
 
     public static MessageBuilder message(final String message) {
@@ -34,16 +54,63 @@ public class MessageBuilder {
     }
 
     public MessageBuilder withFormat(final Object... arguments) {
-        if (isEmpty(arguments)) {
-            return this;
-        }
-        this.message = String.format(this.message, arguments);
+        this.arguments = arguments;
         return this;
     }
 
     public TextMessage build() {
-        final String dateFormat = formatter.format(new Date());
-        return new TextMessage(String.format("<strong>%s %s:</strong> %s", dateFormat, this.sender, this.message));
+        if (this.template == null) {
+            this.template = this.arguments == null || this.arguments.length == 0
+                    ? MessageTemplate.literal(this.text)
+                    : MessageTemplate.parse(this.text);
+        }
+        StringBuilder buffer = BUFFER.get();
+        if (buffer.capacity() > MAX_KEPT_BUFFER) {
+            buffer = new StringBuilder(512);
+            BUFFER.set(buffer);
+        }
+        buffer.setLength(0);
+        buffer.append("<strong>")
+                .append(now())
+                .append(' ')
+                .append(this.sender)
+                .append(":</strong> ");
+        this.template.appendTo(buffer, this.arguments);
+        return new TextMessage(buffer.toString());
+    }
+
+    /**
+     * The time as HH:mm, worked out again only when the second has changed.
+     */
+    static String now() {
+        final long second = System.currentTimeMillis() / 1000L;
+        Stamp current = stamp;
+        if (current.second != second) {
+            final LocalTime time = LocalTime.now();
+            current = new Stamp(second, new StringBuilder(5)
+                    .append((char) ('0' + time.getHour() / 10))
+                    .append((char) ('0' + time.getHour() % 10))
+                    .append(':')
+                    .append((char) ('0' + time.getMinute() / 10))
+                    .append((char) ('0' + time.getMinute() % 10))
+                    .toString());
+            // Two threads may both work it out - they get the same answer, so it doesn't matter which one sticks.
+            stamp = current;
+        }
+        return current.text;
+    }
+
+    private static final class Stamp {
+
+        private final long second;
+
+        private final String text;
+
+        private Stamp(final long second, final String text) {
+            this.second = second;
+            this.text = text;
+        }
+
     }
 
 }
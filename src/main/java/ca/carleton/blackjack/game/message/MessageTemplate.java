@@ -0,0 +1,105 @@
+package ca.carleton.blackjack.game.message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.MissingFormatArgumentException;
+
+/**
+ * A message's content split once into the literal text around each {@code %s}, so filling it in is a few appends
+ * instead of a {@link String#format(String, Object...)}.
+ * <p/>
+ * Only {@code %s} and {@code %%} are understood - that's all our messages use - and anything else is rejected when
+ * parsing. As with the old formatting, content given no arguments at all is used exactly as written.
+ * <p/>
+ * Created by Mike on 11/28/2015.
+ */
+final class MessageTemplate {
+
+    private final String content;
+
+    /**
+     * The text before each argument, then whatever comes after the last one.
+     */
+    private final String[] literals;
+
+    private MessageTemplate(final String content, final String[] literals) {
+        this.content = content;
+        this.literals = literals;
+    }
+
+    /**
+     * Split the given content into literals and arguments.
+     *
+     * @param content the content.
+     * @return the template.
+     */
+    static MessageTemplate parse(final String content) {
+        final List<String> literals = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < content.length(); i++) {
+            final char c = content.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            final char next = i + 1 < content.length() ? content.charAt(i + 1) : 0;
+            if (next == 's') {
+                literals.add(literal.toString());
+                literal.setLength(0);
+            } else if (next == '%') {
+                literal.append('%');
+            } else {
+                throw new IllegalArgumentException("Only %s and %% can be used in a message: " + content);
+            }
+            i++;
+        }
+        literals.add(literal.toString());
+        return new MessageTemplate(content, literals.toArray(new String[literals.size()]));
+    }
+
+    /**
+     * A template that is only ever the given text.
+     *
+     * @param content the content.
+     * @return the template.
+     */
+    static MessageTemplate literal(final String content) {
+        return new MessageTemplate(content, new String[]{content});
+    }
+
+    /**
+     * Fill in the template.
+     *
+     * @param out       where to append.
+     * @param arguments the arguments, in order. Extra ones are ignored.
+     */
+    void appendTo(final StringBuilder out, final Object... arguments) {
+        if (arguments == null || arguments.length == 0) {
+            out.append(this.content);
+            return;
+        }
+        final int last = this.literals.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (i >= arguments.length) {
+                throw new MissingFormatArgumentException("%s");
+            }
+            out.append(this.literals[i]).append(arguments[i]);
+        }
+        out.append(this.literals[last]);
+    }
+
+    /**
+     * @param arguments the arguments.
+     * @return the filled in template.
+     */
+    String format(final Object... arguments) {
+        final StringBuilder out = new StringBuilder(this.content.length() + 32);
+        this.appendTo(out, arguments);
+        return out.toString();
+    }
+
+    String getContent() {
+        return this.content;
+    }
+
+}
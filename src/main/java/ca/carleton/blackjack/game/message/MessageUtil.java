@@ -9,55 +9,108 @@ public class MessageUtil {
 
     public enum Message {
 
-        PLAYER_CONNECTED("|CONNECTED|Successfully connected to the game with unique id %s."),
-        OTHER_PLAYER_CONNECTED("|OTHER+CONNECTED|%s has connected to the game."),
-        PLAYER_DISCONNECTED("|DISCONNECTED|Disconnected to the game with unique id %s."),
-        OTHER_PLAYER_DISCONNECTED(
+        PLAYER_CONNECTED(1, "|CONNECTED|Successfully connected to the game with unique id %s."),
+        OTHER_PLAYER_CONNECTED(2, "|OTHER+CONNECTED|%s has connected to the game."),
+        PLAYER_DISCONNECTED(3, "|DISCONNECTED|Disconnected to the game with unique id %s."),
+        OTHER_PLAYER_DISCONNECTED(4,
                 "|OTHER+DISCONNECTED|%s has disconnected from the game. He will be replaced by an AI if he isn't the admin."),
-        ADMIN_SET(
+        ADMIN_SET(5,
                 "|ADMIN|You have been designated the admin for this game. Enter the number of players/AI and open the lobby."),
-        NOT_ACCEPTING("|NOT+ACCEPTING|The game isn't accepting connections. You will be disconnected."),
-        STARTING_GAME("|GAME+START|The game has started! Please wait for your turn."),
-        DEALING_CARDS("|DEALING+CARDS|Updated cards."),
-        ADD_PLAYER_CARD("|ADD+PLAYER+CARD|%s"),
-        ADD_DEALER_CARD("|ADD+DEALER+CARD|%s"),
+        NOT_ACCEPTING(6, "|NOT+ACCEPTING|The game isn't accepting connections. You will be disconnected."),
+        STARTING_GAME(7, "|GAME+START|The game has started! Please wait for your turn."),
+        DEALING_CARDS(8, "|DEALING+CARDS|Updated cards."),
+        ADD_PLAYER_CARD(9, "|ADD+PLAYER+CARD|%s"),
+        ADD_DEALER_CARD(10, "|ADD+DEALER+CARD|%s"),
         // Send index 0 or 1 so we know which one to fill out, as well as their ID to set.
-        ADD_OTHER_PLAYER_CARD("|ADD+OTHER+PLAYER+CARD|%s|%s|%s"),
-        PLAYER_VALUE("|PLAYER+VALUE|%s"),
-        DEALER_VALUE("|DEALER+VALUE|%s"),
+        ADD_OTHER_PLAYER_CARD(11, "|ADD+OTHER+PLAYER+CARD|%s|%s|%s"),
+        // Turn a face down card that was already sent face up, by its position in the hand.
+        REVEAL_DEALER_CARD(12, "|REVEAL+DEALER+CARD|%s|%s"),
+        REVEAL_OTHER_PLAYER_CARD(13, "|REVEAL+OTHER+PLAYER+CARD|%s|%s|%s"),
+        PLAYER_VALUE(14, "|PLAYER+VALUE|%s"),
+        DEALER_VALUE(15, "|DEALER+VALUE|%s"),
         // index, value
-        OTHER_VALUE("|OTHER+VALUE|%s|%s"),
-        READY_TO_START("|READY+TO+START|The game is now ready to begin. Press start when ready."),
-        OTHER_READY_TO_START("|OTHER+READY+TO+START|The game is now ready to begin. Waiting on admin to start."),
-        YOUR_TURN("|YOUR+TURN|It is your turn, please select one of the three available game options."),
-        SKIPPING("|SKIP|Skipping %s's turn because they are : %s."),
-        MOVE_MADE("|OTHER+MOVE|%s made their turn and %s."),
-        BUST("|BUST|You busted! Please wait for next round."),
-        SEVEN_CARD_CHARLIE("|SEVEN+CHARLIE|You got a seven card charlie and won!"),
-        PROCESSING_AI("|AI+TURN|All real players have made their choices. Now processing AI decisions."),
-        CHARLIE("|CHARLIE|%s has won with a seven card charlie!"),
-        WINNER("|WINNER|%s won with a score of %s!"),
-        LOSER("|LOSER|%s lost, better luck next time!"),
-        RESET("|RESET|Please wait for the administrator to start the next round."),
-        RESET_ADMIN("|RESET+ADMIN|To start another round, press the start button."),
-        ALL_QUIT("|ALL+QUIT|The administrator has left. Current sessions will be disconnected.");
-
-        private final String content;
-
-        Message(final String content) {
-            this.content = content;
+        OTHER_VALUE(16, "|OTHER+VALUE|%s|%s"),
+        READY_TO_START(17, "|READY+TO+START|The game is now ready to begin. Press start when ready."),
+        OTHER_READY_TO_START(18, "|OTHER+READY+TO+START|The game is now ready to begin. Waiting on admin to start."),
+        YOUR_TURN(19, "|YOUR+TURN|It is your turn, please select one of the three available game options."),
+        SKIPPING(20, "|SKIP|Skipping %s's turn because they are : %s."),
+        MOVE_MADE(21, "|OTHER+MOVE|%s made their turn and %s."),
+        BUST(22, "|BUST|You busted! Please wait for next round."),
+        SEVEN_CARD_CHARLIE(23, "|SEVEN+CHARLIE|You got a seven card charlie and won!"),
+        PROCESSING_AI(24, "|AI+TURN|All real players have made their choices. Now processing AI decisions."),
+        CHARLIE(25, "|CHARLIE|%s has won with a seven card charlie!"),
+        WINNER(26, "|WINNER|%s won with a score of %s!"),
+        LOSER(27, "|LOSER|%s lost, better luck next time!"),
+        RESET(28, "|RESET|Please wait for the administrator to start the next round."),
+        RESET_ADMIN(29, "|RESET+ADMIN|To start another round, press the start button."),
+        ALL_QUIT(30, "|ALL+QUIT|The administrator has left. Current sessions will be disconnected."),
+        TURN_TIMED_OUT(31, "|TIMED+OUT|You took too long to choose, so you STAYED."),
+        TABLE_CLOSED(32, "|TABLE+CLOSED|Nobody has played at this table for a while. Current sessions will be disconnected."),
+        CANT_SEAT(33, "|CANT+SEAT|This table can't open a lobby for %s players at %s seats. Choose again and reopen it.");
+
+        private final int opcode;
+
+        private final MessageTemplate template;
+
+        Message(final int opcode, final String content) {
+            this.opcode = opcode;
+            this.template = MessageTemplate.parse(content);
+        }
+
+        /**
+         * The byte that stands for this message in the binary protocol - see {@link BinaryProtocol}. Never reuse or
+         * renumber one, older clients depend on them.
+         */
+        public int getOpcode() {
+            return this.opcode;
         }
 
         public String getContent() {
-            return this.content;
+            return this.template.getContent();
+        }
+
+        /**
+         * Fill in this message's content.
+         *
+         * @param arguments the arguments - none leaves the content as it is.
+         * @return the content.
+         */
+        public String format(final Object... arguments) {
+            return this.template.format(arguments);
+        }
+
+        MessageTemplate getTemplate() {
+            return this.template;
         }
     }
 
     private static final String SERVER_UID = "Server";
 
     public static MessageBuilder message(final Message message, final Object... formatArgs) {
-        return new MessageBuilder(message.getContent())
+        return new MessageBuilder(message.getTemplate())
                 .withFormat(formatArgs)
                 .withSender(SERVER_UID);
     }
+
+    /**
+     * A message from the server, to be encoded for whichever protocol each recipient speaks.
+     *
+     * @param message    the message.
+     * @param formatArgs the arguments for its content.
+     * @return the message.
+     */
+    public static GameMessage gameMessage(final Message message, final Object... formatArgs) {
+        return new GameMessage(message, null, formatArgs);
+    }
+
+    /**
+     * A message from the server whose body has already been rendered (see {@link CardFragments}).
+     *
+     * @param body the finished message body.
+     * @return the builder.
+     */
+    public static MessageBuilder prerendered(final String body) {
+        return new MessageBuilder(MessageTemplate.literal(body))
+                .withSender(SERVER_UID);
+    }
 }
@@ -0,0 +1,59 @@
+package ca.carleton.blackjack.journal;
+
+/**
+ * What a journal record is about. The code is what's written to the journal, so existing codes must never change.
+ * <p/>
+ * Created by Mike on 11/30/2015.
+ */
+public enum JournalEvent {
+    /**
+     * A round was dealt. The value is how many are seated, dealer included.
+     */
+    ROUND(1),
+    /**
+     * A card dealt at the start of a round.
+     */
+    DEAL(2),
+    /**
+     * A card drawn by a HIT.
+     */
+    DRAW(3),
+    /**
+     * A move, with the option it ended on (so BUST or SEVEN_CARD_CHARLIE if the hand did) and the hand's value.
+     */
+    OPTION(4),
+    /**
+     * A player's face down cards were turned over.
+     */
+    REVEAL(5),
+    /**
+     * How a player's hand finished the round.
+     */
+    RESOLUTION(6);
+
+    private static final JournalEvent[] BY_CODE = new JournalEvent[values().length + 1];
+
+    static {
+        for (final JournalEvent event : values()) {
+            BY_CODE[event.code] = event;
+        }
+    }
+
+    private final byte code;
+
+    JournalEvent(final int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return this.code;
+    }
+
+    /**
+     * @return the event with the given code, or null if there is none (0 is a record that was never written).
+     */
+    public static JournalEvent of(final int code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+}
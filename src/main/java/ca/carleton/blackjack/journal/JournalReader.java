@@ -0,0 +1,129 @@
+package ca.carleton.blackjack.journal;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static ca.carleton.blackjack.journal.RoundJournal.*;
+
+/**
+ * Prints the records in round journal segments, one per line. Give it segment files or directories of them, or
+ * nothing for the default {@code ~/blackjack/journal}:
+ * <p/>
+ * {@code java -cp target/classes ca.carleton.blackjack.journal.JournalReader ~/blackjack/journal}
+ * <p/>
+ * Records that were claimed but never finished (the server stopped mid-write, or the write was dropped) are skipped.
+ * <p/>
+ * Created by Mike on 11/30/2015.
+ */
+public final class JournalReader {
+
+    private JournalReader() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final String[] paths = args.length == 0
+                ? new String[]{Paths.get(System.getProperty("user.home"), "blackjack", "journal").toString()}
+                : args;
+        for (final String arg : paths) {
+            for (final Path file : segments(Paths.get(arg))) {
+                print(file, System.out);
+            }
+        }
+    }
+
+    /**
+     * Print every record in one segment.
+     *
+     * @param file the segment.
+     * @param out  where to print them.
+     */
+    public static void print(final Path file, final PrintStream out) throws IOException {
+        final ByteBuffer buffer;
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " isn't a round journal segment.");
+        }
+        if (buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD_BYTES) {
+            throw new IOException(file + " is journal version " + buffer.getShort(4) + " - can't read it.");
+        }
+        out.printf("# %s - server started %s%n", file.getFileName(), Instant.ofEpochMilli(buffer.getLong(8)));
+        for (int offset = HEADER_BYTES; offset + RECORD_BYTES <= buffer.capacity(); offset += RECORD_BYTES) {
+            final JournalEvent event = JournalEvent.of(buffer.get(offset + EVENT));
+            if (event != null) {
+                out.println(format(buffer, offset, event));
+            }
+        }
+    }
+
+    private static String format(final ByteBuffer buffer, final int offset, final JournalEvent event) {
+        final StringBuilder line = new StringBuilder()
+                .append(Instant.ofEpochMilli(buffer.getLong(offset + TIME)))
+                .append(" table=").append(buffer.getInt(offset + TABLE))
+                .append(" round=").append(buffer.getInt(offset + ROUND))
+                .append(' ').append(event);
+        final int seat = buffer.get(offset + SEAT);
+        if (seat >= 0) {
+            line.append(" seat=").append(seat);
+        }
+        final int card = buffer.get(offset + CARD);
+        if (card >= 0 && card < Card.NUMBER_OF_CARDS) {
+            // Enum names rather than Card.toString(), so the reader runs with nothing but target/classes.
+            line.append(" card=").append(Card.of(card).getRank().name()).append(" of ")
+                    .append(Card.of(card).getSuit().name());
+        }
+        final int detail = buffer.get(offset + DETAIL);
+        if (event == JournalEvent.OPTION && detail >= 0 && detail < GameOption.values().length) {
+            line.append(' ').append(GameOption.values()[detail]);
+        } else if (event == JournalEvent.RESOLUTION && detail >= 0 && detail < HandStatus.values().length) {
+            line.append(' ').append(HandStatus.values()[detail]);
+        }
+        final int flags = buffer.get(offset + FLAGS);
+        appendFlag(line, flags, HIDDEN, "hidden");
+        appendFlag(line, flags, SPLIT, "split");
+        appendFlag(line, flags, AI, "ai");
+        appendFlag(line, flags, DEALER, "dealer");
+        if (event != JournalEvent.DEAL && event != JournalEvent.DRAW) {
+            line.append(" value=").append(buffer.getShort(offset + VALUE));
+        }
+        return line.toString();
+    }
+
+    private static void appendFlag(final StringBuilder line, final int flags, final int flag, final String name) {
+        if ((flags & flag) != 0) {
+            line.append(' ').append(name);
+        }
+    }
+
+    /**
+     * The segment itself, or every segment in a directory in name order (which, per node, is the order written).
+     */
+    static List<Path> segments(final Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Collections.singletonList(path);
+        }
+        final List<Path> files = new ArrayList<>();
+        try (final DirectoryStream<Path> stream = Files.newDirectoryStream(path, "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+}
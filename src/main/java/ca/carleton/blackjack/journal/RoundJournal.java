@@ -0,0 +1,583 @@
+package ca.carleton.blackjack.journal;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An append-only record of every deal, draw, move, reveal and result at every table on this server, kept for audits.
+ * <p/>
+ * Records are a fixed {@link #RECORD_BYTES} bytes, written straight into memory-mapped segment files named after the
+ * node ({@code blackjack.journal.node}, the host name by default). Appending claims the next record with one atomic
+ * increment and writes it in place, so tables don't wait on each other, never allocate and never wait on the disk.
+ * A background thread forces whatever was written to disk every {@code blackjack.journal.flush.millis} (one flush
+ * for every record in that window), finishes off full segments and keeps the next {@link #SPARES} segments mapped
+ * ahead. Mapping is never done on a table's thread: a table that gets that far ahead of the flusher waits for it
+ * rather than losing a record.
+ * <p/>
+ * A crash of the server loses nothing that was appended. A crash of the machine loses at most the last flush window.
+ * Use {@link JournalReader} to read the segments back.
+ * <p/>
+ * Created by Mike on 11/30/2015.
+ */
+@Service
+public class RoundJournal implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RoundJournal.class);
+
+    /**
+     * "BJJ1" - the first four bytes of every segment.
+     */
+    static final int MAGIC = 0x424a4a31;
+
+    static final short VERSION = 1;
+
+    /**
+     * Magic, version, record size, then when the server started, so tables numbered by different runs can be told
+     * apart.
+     */
+    static final int HEADER_BYTES = 16;
+
+    static final int RECORD_BYTES = 24;
+
+    // Where each field sits in a record. The event is written last - a record with no event was never finished.
+    static final int TIME = 0;
+
+    static final int TABLE = 8;
+
+    static final int ROUND = 12;
+
+    static final int EVENT = 16;
+
+    static final int SEAT = 17;
+
+    static final int CARD = 18;
+
+    static final int DETAIL = 19;
+
+    static final int FLAGS = 20;
+
+    static final int VALUE = 22;
+
+    static final String SUFFIX = ".journal";
+
+    public static final int HIDDEN = 1;
+
+    public static final int SPLIT = 2;
+
+    public static final int AI = 4;
+
+    public static final int DEALER = 8;
+
+    /**
+     * Segments that can still be written to. A segment's slot isn't reused until every record in it was written.
+     */
+    private static final int OPEN_SEGMENTS = 4;
+
+    /**
+     * Segments the flusher keeps mapped ahead of the one being written.
+     */
+    private static final int SPARES = 2;
+
+    private static final int NONE = -1;
+
+    @Value("${blackjack.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${blackjack.journal.dir:${user.home}/blackjack/journal}")
+    private String directory;
+
+    @Value("${blackjack.journal.node:}")
+    private String node;
+
+    @Value("${blackjack.journal.segment.bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${blackjack.journal.flush.millis:200}")
+    private long flushMillis;
+
+    private final AtomicInteger tables = new AtomicInteger();
+
+    /**
+     * Records claimed so far this run.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong rollWaits = new AtomicLong();
+
+    private final AtomicReferenceArray<Segment> open = new AtomicReferenceArray<>(OPEN_SEGMENTS);
+
+    /**
+     * Segments that are done with, waiting for their last flush.
+     */
+    private final Queue<Segment> retired = new ConcurrentLinkedQueue<>();
+
+    private final Object rollLock = new Object();
+
+    /**
+     * The newest segment, and the ones mapped ahead of it in order - both guarded by the roll lock.
+     */
+    private volatile Segment latest;
+
+    private final Deque<Segment> spares = new ArrayDeque<>(SPARES);
+
+    private Path path;
+
+    private long started;
+
+    private long firstSegment;
+
+    private long recordsPerSegment;
+
+    private long flushedTail;
+
+    private volatile boolean running;
+
+    /**
+     * Set when a table is waiting for a spare.
+     */
+    private volatile boolean spareWanted;
+
+    private Thread flusher;
+
+    @PostConstruct
+    public void init() {
+        if (!this.enabled) {
+            LOG.info("Round journal is off.");
+            return;
+        }
+        if (this.node.isEmpty()) {
+            this.node = hostName();
+        }
+        this.recordsPerSegment = (this.segmentBytes - HEADER_BYTES) / RECORD_BYTES;
+        if (this.recordsPerSegment < 1) {
+            throw new IllegalArgumentException("Journal segments must be bigger than " + (HEADER_BYTES + RECORD_BYTES)
+                    + " bytes, not " + this.segmentBytes);
+        }
+        this.started = System.currentTimeMillis();
+        try {
+            this.path = Files.createDirectories(Paths.get(this.directory));
+            this.firstSegment = this.lastSegment() + 1;
+            this.latest = this.map(this.firstSegment);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException("Can't open the round journal in " + this.directory, exception);
+        }
+        this.open.set(slot(this.firstSegment), this.latest);
+        this.running = true;
+        this.flusher = new Thread(this::flush, "journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        LOG.info("Journalling rounds to {} from {}.", this.path.toAbsolutePath(), this.latest.file.getFileName());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!this.running) {
+            return;
+        }
+        this.running = false;
+        // Not interrupted - that would close a channel the flusher is mapping.
+        LockSupport.unpark(this.flusher);
+        try {
+            this.flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this.rollLock) {
+            // Tables still waiting for a segment give up.
+            this.rollLock.notifyAll();
+            this.forceAll();
+            Segment spare;
+            while ((spare = this.spares.poll()) != null) {
+                try {
+                    Files.deleteIfExists(spare.file);
+                } catch (final IOException exception) {
+                    LOG.warn("Couldn't delete unused journal segment {}.", spare.file, exception);
+                }
+            }
+        }
+        LOG.info("Round journal closed after {} records.", this.tail.get());
+    }
+
+    /**
+     * Number a new table, for its records. Numbers start again each run - the segment header tells runs apart.
+     *
+     * @return the number.
+     */
+    public int newTable() {
+        return this.tables.incrementAndGet();
+    }
+
+    /**
+     * Record the start of a round.
+     *
+     * @param table  the table's number.
+     * @param round  the round.
+     * @param seated how many are seated, dealer included.
+     */
+    public void round(final int table, final long round, final int seated) {
+        this.append(JournalEvent.ROUND, table, round, NONE, NONE, NONE, 0, seated);
+    }
+
+    /**
+     * Record a card being dealt or drawn.
+     *
+     * @param event DEAL or DRAW.
+     * @param table the table's number.
+     * @param round the round.
+     * @param seat  who got it.
+     * @param card  the card.
+     * @param flags {@link #HIDDEN}, {@link #SPLIT}, {@link #AI} and {@link #DEALER}, as they apply.
+     */
+    public void card(final JournalEvent event,
+                     final int table,
+                     final long round,
+                     final int seat,
+                     final Card card,
+                     final int flags) {
+        this.append(event, table, round, seat, card.getIndex(), NONE, flags, 0L);
+    }
+
+    /**
+     * Record a move, once it's made.
+     *
+     * @param table  the table's number.
+     * @param round  the round.
+     * @param seat   who moved.
+     * @param option the option they ended on.
+     * @param value  their hand's value after it.
+     */
+    public void option(final int table, final long round, final int seat, final GameOption option, final long value) {
+        this.append(JournalEvent.OPTION, table, round, seat, NONE, option.ordinal(), 0, value);
+    }
+
+    public void reveal(final int table, final long round, final int seat, final long value) {
+        this.append(JournalEvent.REVEAL, table, round, seat, NONE, NONE, 0, value);
+    }
+
+    public void resolution(final int table,
+                           final long round,
+                           final int seat,
+                           final HandStatus status,
+                           final long value) {
+        this.append(JournalEvent.RESOLUTION, table, round, seat, NONE, status.ordinal(), 0, value);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public long getRecords() {
+        return this.tail.get();
+    }
+
+    public long getDropped() {
+        return this.dropped.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Arrays.asList(new Metric<>("journal.records", this.tail.get()),
+                new Metric<>("journal.flushes", this.flushes.get()),
+                new Metric<>("journal.dropped", this.dropped.get()),
+                new Metric<>("journal.rolls.waited", this.rollWaits.get()));
+    }
+
+    private void append(final JournalEvent event,
+                        final int table,
+                        final long round,
+                        final int seat,
+                        final int card,
+                        final int detail,
+                        final int flags,
+                        final long value) {
+        if (!this.enabled) {
+            return;
+        }
+        final long index = this.tail.getAndIncrement();
+        final long number = this.firstSegment + index / this.recordsPerSegment;
+        Segment segment = this.open.get(slot(number));
+        if (segment == null || segment.number != number) {
+            segment = this.roll(number);
+            if (segment == null) {
+                this.dropped.incrementAndGet();
+                return;
+            }
+        }
+        final MappedByteBuffer buffer = segment.buffer;
+        final int offset = HEADER_BYTES + (int) (index % this.recordsPerSegment) * RECORD_BYTES;
+        buffer.putLong(offset + TIME, System.currentTimeMillis());
+        buffer.putInt(offset + TABLE, table);
+        buffer.putInt(offset + ROUND, (int) round);
+        buffer.put(offset + SEAT, (byte) seat);
+        buffer.put(offset + CARD, (byte) card);
+        buffer.put(offset + DETAIL, (byte) detail);
+        buffer.put(offset + FLAGS, (byte) flags);
+        buffer.putShort(offset + VALUE, (short) Math.min(value, Short.MAX_VALUE));
+        buffer.put(offset + EVENT, event.getCode());
+        if (segment.written.incrementAndGet() == this.recordsPerSegment) {
+            this.retire(segment);
+            synchronized (this.rollLock) {
+                // A table may be waiting for this segment's slot.
+                this.rollLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Open every segment up to the given one by taking the spares the flusher mapped ahead of time. If there isn't one
+     * ready, or the slot it goes in still has records being written, wait - the flusher is woken to map more.
+     *
+     * @return the segment, or null if it's already been closed or the journal was shut down.
+     */
+    private Segment roll(final long number) {
+        boolean interrupted = false;
+        try {
+            synchronized (this.rollLock) {
+                while (this.latest.number < number) {
+                    if (!this.running) {
+                        return null;
+                    }
+                    final long next = this.latest.number + 1;
+                    final Segment closing = this.open.get(slot(next));
+                    final Segment spare = this.spares.peek();
+                    if (spare == null || closing != null && closing.written.get() < this.recordsPerSegment) {
+                        this.rollWaits.incrementAndGet();
+                        if (spare == null) {
+                            this.spareWanted = true;
+                            LockSupport.unpark(this.flusher);
+                        }
+                        try {
+                            this.rollLock.wait();
+                        } catch (final InterruptedException exception) {
+                            interrupted = true;
+                        }
+                        continue;
+                    }
+                    this.spares.poll();
+                    this.open.set(slot(next), spare);
+                    this.latest = spare;
+                    this.rollLock.notifyAll();
+                }
+                final Segment segment = this.open.get(slot(number));
+                return segment != null && segment.number == number ? segment : null;
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void retire(final Segment segment) {
+        if (segment.retired.compareAndSet(false, true)) {
+            this.retired.add(segment);
+        }
+    }
+
+    /**
+     * The flusher thread - keeping spare segments mapped, group commit and finishing off full segments. Woken early
+     * when a table is waiting for a spare.
+     */
+    private void flush() {
+        while (this.running) {
+            this.awaitNextFlush();
+            if (!this.running) {
+                break;
+            }
+            try {
+                this.prepareSpares();
+                this.forceRetired();
+                this.forceOpen();
+            } catch (final RuntimeException exception) {
+                LOG.error("Error flushing the round journal.", exception);
+            }
+        }
+    }
+
+    private void awaitNextFlush() {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(1L, this.flushMillis));
+        long remaining;
+        while (this.running && !this.spareWanted && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+        this.spareWanted = false;
+    }
+
+    private void forceRetired() {
+        Segment segment;
+        while ((segment = this.retired.poll()) != null) {
+            segment.buffer.force();
+            LOG.debug("Journal segment {} is complete.", segment.file.getFileName());
+        }
+    }
+
+    /**
+     * Force the open segments if anything was appended since the last time.
+     */
+    private void forceOpen() {
+        final long claimed = this.tail.get();
+        if (claimed == this.flushedTail) {
+            return;
+        }
+        for (int i = 0; i < OPEN_SEGMENTS; i++) {
+            final Segment segment = this.open.get(i);
+            if (segment != null && !segment.retired.get()) {
+                segment.buffer.force();
+            }
+        }
+        this.flushedTail = claimed;
+        this.flushes.incrementAndGet();
+    }
+
+    /**
+     * Map segments until {@link #SPARES} are ready. Only this thread maps, and outside the roll lock, so tables keep
+     * writing to the segments they have meanwhile.
+     */
+    private void prepareSpares() {
+        while (this.running) {
+            final long number;
+            synchronized (this.rollLock) {
+                if (this.spares.size() >= SPARES) {
+                    return;
+                }
+                number = (this.spares.isEmpty() ? this.latest.number : this.spares.peekLast().number) + 1;
+            }
+            final Segment prepared;
+            try {
+                prepared = this.map(number);
+            } catch (final IOException exception) {
+                // Tables wait until the next try rather than lose records.
+                LOG.error("Couldn't map journal segment {} ahead of time.", number, exception);
+                return;
+            }
+            synchronized (this.rollLock) {
+                this.spares.add(prepared);
+                this.rollLock.notifyAll();
+            }
+            // Fault its pages in now rather than on the tables' threads.
+            prepared.buffer.load();
+        }
+    }
+
+    private void forceAll() {
+        this.forceRetired();
+        for (int i = 0; i < OPEN_SEGMENTS; i++) {
+            final Segment segment = this.open.get(i);
+            if (segment != null) {
+                segment.buffer.force();
+            }
+        }
+    }
+
+    private Segment map(final long number) throws IOException {
+        final Path file = this.path.resolve(String.format("%s-%06d%s", this.node, number, SUFFIX));
+        try (final FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel.
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putShort(6, (short) RECORD_BYTES);
+            buffer.putLong(8, this.started);
+            return new Segment(number, file, buffer);
+        }
+    }
+
+    /**
+     * The highest segment number this node has written, or 0 if none.
+     */
+    private long lastSegment() throws IOException {
+        long last = 0L;
+        final String prefix = this.node + "-";
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(this.path, prefix + "*" + SUFFIX)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                try {
+                    last = Math.max(last, Long.parseLong(
+                            name.substring(prefix.length(), name.length() - SUFFIX.length())));
+                } catch (final NumberFormatException exception) {
+                    LOG.debug("Ignoring {} in the journal directory.", name);
+                }
+            }
+        }
+        return last;
+    }
+
+    private static int slot(final long number) {
+        return (int) (number % OPEN_SEGMENTS);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName().replaceAll("[^A-Za-z0-9._-]", "_");
+        } catch (final UnknownHostException exception) {
+            return "node";
+        }
+    }
+
+    /**
+     * One mapped segment file.
+     */
+    private static final class Segment {
+
+        private final long number;
+
+        private final Path file;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Records finished in this segment - once it's full, nobody will write to it again.
+         */
+        private final AtomicLong written = new AtomicLong();
+
+        private final AtomicBoolean retired = new AtomicBoolean();
+
+        private Segment(final long number, final Path file, final MappedByteBuffer buffer) {
+            this.number = number;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+    }
+
+}
@@ -0,0 +1,315 @@
+package ca.carleton.blackjack.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One thread that keeps every timer on the server - turn deadlines, delayed disconnects and idle checks.
+ * <p/>
+ * Timers are kept in a wheel of buckets, one per tick. Scheduling only queues the timer, and the timer thread drops it
+ * into the bucket its deadline falls in (along with how many more turns of the wheel it has to wait), so scheduling
+ * and cancelling are both O(1) and a pending timer costs one small object. Deadlines are only as accurate as the tick.
+ * <p/>
+ * Tasks run on the timer thread, so they must be quick - anything more than a few lines should be handed off to a
+ * table or the outbound writer.
+ * <p/>
+ * Created by Mike on 11/29/2015.
+ */
+@Service
+public class HashedWheelTimer implements PublicMetrics {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+    /**
+     * Most timers moved into the wheel per tick, so a flood of new ones can't hold up the ones that are due.
+     */
+    private static final int TRANSFERS_PER_TICK = 100000;
+
+    @Value("${blackjack.timer.tick.millis:100}")
+    private long tickMillis;
+
+    @Value("${blackjack.timer.wheel.size:512}")
+    private int wheelSize;
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private Bucket[] wheel;
+
+    private int mask;
+
+    private long tickNanos;
+
+    private long startTime;
+
+    /**
+     * Ticks done so far - only touched by the timer thread.
+     */
+    private long tick;
+
+    private volatile boolean running;
+
+    private Thread worker;
+
+    @PostConstruct
+    public void init() {
+        int size = 1;
+        while (size < Math.max(1, this.wheelSize)) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, this.tickMillis));
+        this.startTime = System.nanoTime();
+        this.running = true;
+        this.worker = new Thread(this::run, "wheel-timer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+        LOG.info("Started timer with {} buckets of {} ms.", size, TimeUnit.NANOSECONDS.toMillis(this.tickNanos));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.running = false;
+        this.worker.interrupt();
+    }
+
+    /**
+     * Run the task once the delay has passed.
+     *
+     * @param task  the task.
+     * @param delay the delay.
+     * @param unit  the delay's unit.
+     * @return the timeout, to cancel it with.
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() - this.startTime + unit.toNanos(delay));
+        this.pending.incrementAndGet();
+        this.added.add(timeout);
+        return timeout;
+    }
+
+    public long getPending() {
+        return this.pending.get();
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        return Collections.singletonList(new Metric<>("timer.pending", this.pending.get()));
+    }
+
+    private void run() {
+        while (this.running) {
+            final long now = this.waitForNextTick();
+            if (now < 0L) {
+                continue;
+            }
+            this.removeCancelled();
+            this.transferAdded();
+            this.wheel[(int) (this.tick & this.mask)].expire(now);
+            this.tick++;
+        }
+        LOG.info("Timer stopped with {} timers pending.", this.pending.get());
+    }
+
+    /**
+     * Sleep until the next tick is due.
+     *
+     * @return the time since we started, or -1 if we were woken up early.
+     */
+    private long waitForNextTick() {
+        final long deadline = this.tickNanos * (this.tick + 1);
+        while (true) {
+            final long now = System.nanoTime() - this.startTime;
+            final long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - now + 999999L);
+            if (sleepMillis <= 0L) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (final InterruptedException exception) {
+                return -1L;
+            }
+        }
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < TRANSFERS_PER_TICK; i++) {
+            final Timeout timeout = this.added.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            final long due = timeout.deadline / this.tickNanos;
+            timeout.remainingRounds = (due - this.tick) / this.wheel.length;
+            // Anything already overdue goes in the bucket we're about to expire.
+            this.wheel[(int) (Math.max(due, this.tick) & this.mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = this.cancelled.poll()) != null) {
+            // Still in the added queue if it has no bucket - it's skipped when it comes out.
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * A scheduled task. Cancelling one that has already run (or been cancelled) does nothing.
+     */
+    public static final class Timeout {
+
+        private static final int WAITING = 0;
+
+        private static final int CANCELLED = 1;
+
+        private static final int EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+
+        private final Runnable task;
+
+        private final long deadline;
+
+        private volatile int state = WAITING;
+
+        // The rest belongs to the timer thread.
+        private long remainingRounds;
+
+        private Bucket bucket;
+
+        private Timeout next;
+
+        private Timeout previous;
+
+        private Timeout(final HashedWheelTimer timer, final Runnable task, final long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Stop the task from running.
+         *
+         * @return true if it hadn't run yet.
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED)) {
+                return false;
+            }
+            this.timer.pending.decrementAndGet();
+            this.timer.cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return this.state == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state == EXPIRED;
+        }
+
+        private void expire() {
+            if (!STATE.compareAndSet(this, WAITING, EXPIRED)) {
+                return;
+            }
+            this.timer.pending.decrementAndGet();
+            try {
+                this.task.run();
+            } catch (final RuntimeException exception) {
+                LOG.error("Error running timer task.", exception);
+            }
+        }
+
+    }
+
+    /**
+     * The timers in one slot of the wheel, as a doubly linked list so any of them can be taken out directly.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+
+        private Timeout tail;
+
+        private void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.previous = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        private void remove(final Timeout timeout) {
+            if (timeout.previous != null) {
+                timeout.previous.next = timeout.next;
+            } else {
+                this.head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.previous = timeout.previous;
+            } else {
+                this.tail = timeout.previous;
+            }
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Run every timer in this bucket that is due on this turn of the wheel.
+         *
+         * @param now the time since the timer started.
+         */
+        private void expire(final long now) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0L && timeout.deadline <= now) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    this.remove(timeout);
+                } else if (timeout.remainingRounds > 0L) {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package ca.carleton.blackjack.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes to client sessions on its own pool of threads, so sending never blocks a table.
+ * <p/>
+ * Each session gets a {@link SessionOutbox}, kept in its attributes. A client that falls too far behind - too much
+ * waiting to be sent, or one write taking too long - is disconnected rather than holding up anyone else.
+ * <p/>
+ * Created by Mike on 11/29/2015.
+ */
+@Service
+public class OutboundWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OutboundWriter.class);
+
+    private static final String OUTBOX = SessionOutbox.class.getName();
+
+    @Value("${blackjack.outbound.writers:0}")
+    private int writers;
+
+    @Value("${blackjack.outbound.limit.bytes:262144}")
+    private long bufferLimit;
+
+    @Value("${blackjack.outbound.limit.millis:5000}")
+    private long sendTimeLimit;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        // Writes block on the network, so have more threads than cores.
+        final int threads = this.writers > 0 ? this.writers : Runtime.getRuntime().availableProcessors() * 2;
+        final AtomicInteger count = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "session-writer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Only scheduled outboxes sit in the queue, so it is bounded by the number of sessions.
+        this.executor = new ThreadPoolExecutor(threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory);
+        LOG.info("Started {} session writers - clients are cut off at {} buffered bytes or {} ms per send.",
+                threads,
+                this.bufferLimit,
+                this.sendTimeLimit);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Queue a message for the session. Returns straight away.
+     *
+     * @param session the session.
+     * @param message the message.
+     * @return false if the session was too far behind to take it - it is being disconnected.
+     */
+    public boolean send(final WebSocketSession session, final WebSocketMessage<?> message) {
+        return this.offer(session, message, false, false);
+    }
+
+    /**
+     * Queue a frame of card updates for a session that only wants the latest state. A snapshot replaces any card
+     * updates still waiting to be sent.
+     *
+     * @param session  the session.
+     * @param message  the frame.
+     * @param snapshot whether the frame holds every hand rather than what changed.
+     * @return false if the session was too far behind to take it - it is being disconnected.
+     */
+    public boolean sendState(final WebSocketSession session,
+                             final WebSocketMessage<?> message,
+                             final boolean snapshot) {
+        return this.offer(session, message, true, snapshot);
+    }
+
+    /**
+     * Choose whether a session gets every card update, or only the latest cards when it falls behind.
+     *
+     * @param session    the session.
+     * @param latestOnly true for only the latest.
+     */
+    public void setLatestOnly(final WebSocketSession session, final boolean latestOnly) {
+        this.outboxFor(session).setLatestOnly(latestOnly);
+    }
+
+    public boolean isLatestOnly(final WebSocketSession session) {
+        return this.outboxFor(session).isLatestOnly();
+    }
+
+    /**
+     * @param session the session.
+     * @return whether the session still has anything waiting to be sent.
+     */
+    public boolean isBehind(final WebSocketSession session) {
+        return this.outboxFor(session).isBehind();
+    }
+
+    /**
+     * Close the session once everything already queued for it has been sent.
+     *
+     * @param session the session.
+     * @param status  the reason why we're closing.
+     */
+    public void close(final WebSocketSession session, final CloseStatus status) {
+        this.outboxFor(session).closeAfterQueued(status);
+    }
+
+    private boolean offer(final WebSocketSession session,
+                          final WebSocketMessage<?> message,
+                          final boolean state,
+                          final boolean snapshot) {
+        final SessionOutbox outbox = this.outboxFor(session);
+        if (outbox.offer(message, state, snapshot, this.bufferLimit, this.sendTimeLimit)) {
+            return true;
+        }
+        if (outbox.abort(CloseStatus.SESSION_NOT_RELIABLE)) {
+            LOG.warn("{} can't keep up with what we're sending - disconnecting them.", session.getId());
+        }
+        return false;
+    }
+
+    private SessionOutbox outboxFor(final WebSocketSession session) {
+        SessionOutbox outbox = (SessionOutbox) session.getAttributes().get(OUTBOX);
+        if (outbox == null) {
+            final SessionOutbox created = new SessionOutbox(session, this.executor);
+            outbox = (SessionOutbox) session.getAttributes().putIfAbsent(OUTBOX, created);
+            if (outbox == null) {
+                outbox = created;
+            }
+        }
+        return outbox;
+    }
+
+}
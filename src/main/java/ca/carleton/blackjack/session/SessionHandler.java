@@ -2,13 +2,12 @@ package ca.carleton.blackjack.session;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -16,6 +15,8 @@ import java.util.concurrent.TimeUnit;
  * <p/>
  * Taken from github as an example of dealing with websockets.
  * <p/>
+ * Also disconnects sessions that haven't sent anything for a while. Both use the shared {@link HashedWheelTimer}.
+ * <p/>
  * Created by Mike on 10/7/2015.
  */
 @Service
@@ -23,8 +24,18 @@ public class SessionHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(SessionHandler.class);
 
-    // Will never use all 4, but just in case.
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private static final String IDLE_WATCH = IdleWatch.class.getName();
+
+    private static final CloseStatus IDLE = CloseStatus.POLICY_VIOLATION.withReason("Idle for too long");
+
+    @Value("${blackjack.session.idle.seconds:1800}")
+    private long idleSeconds;
+
+    @Autowired
+    private HashedWheelTimer timer;
+
+    @Autowired
+    private OutboundWriter outboundWriter;
 
     /**
      * Register a session to be disconnected.
@@ -32,16 +43,90 @@ public class SessionHandler {
      * @param session the session.
      */
     public void registerSessionForDisconnect(final WebSocketSession session) {
-        this.scheduler.schedule(() -> {
-            try {
-                session.close(CloseStatus.NOT_ACCEPTABLE);
-                LOG.info("Disconnected session {}.", session.getId());
-            } catch (final IOException exception) {
-                LOG.warn("Error with closing session: {}.", exception.getMessage());
-            }
+        this.timer.schedule(() -> {
+            // Closed by the writer, after anything still waiting to be sent to them.
+            this.outboundWriter.close(session, CloseStatus.NOT_ACCEPTABLE);
+            LOG.info("Disconnecting session {}.", session.getId());
         }, 2, TimeUnit.SECONDS);
         if (session != null) {
             LOG.info("Registered {} for disconnect.", session.getId());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Start watching a newly opened session, so it is disconnected if it goes quiet. Does nothing if idle sessions
+     * are allowed to stay.
+     *
+     * @param session the session.
+     */
+    public void watchForIdle(final WebSocketSession session) {
+        if (this.idleSeconds > 0) {
+            final IdleWatch watch = new IdleWatch(session);
+            session.getAttributes().put(IDLE_WATCH, watch);
+            watch.schedule(TimeUnit.SECONDS.toNanos(this.idleSeconds));
+        }
+    }
+
+    /**
+     * Note that the session just sent something.
+     *
+     * @param session the session.
+     */
+    public void touch(final WebSocketSession session) {
+        final IdleWatch watch = (IdleWatch) session.getAttributes().get(IDLE_WATCH);
+        if (watch != null) {
+            watch.lastActive = System.nanoTime();
+        }
+    }
+
+    /**
+     * Stop watching a session that has closed.
+     *
+     * @param session the session.
+     */
+    public void forget(final WebSocketSession session) {
+        final IdleWatch watch = (IdleWatch) session.getAttributes().remove(IDLE_WATCH);
+        if (watch != null) {
+            watch.timeout.cancel();
+        }
+    }
+
+    /**
+     * One timer per session. Messages only bump the last active time - when the timer goes off it either disconnects
+     * the session or sets itself again for whatever is left.
+     */
+    private final class IdleWatch implements Runnable {
+
+        private final WebSocketSession session;
+
+        private volatile long lastActive = System.nanoTime();
+
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private IdleWatch(final WebSocketSession session) {
+            this.session = session;
+        }
+
+        private void schedule(final long delayNanos) {
+            this.timeout = SessionHandler.this.timer.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (!this.session.isOpen()) {
+                return;
+            }
+            final long limit = TimeUnit.SECONDS.toNanos(SessionHandler.this.idleSeconds);
+            final long idle = System.nanoTime() - this.lastActive;
+            if (idle < limit) {
+                this.schedule(limit - idle);
+                return;
+            }
+            LOG.info("Disconnecting {} - nothing from them for {} seconds.",
+                    this.session.getId(),
+                    TimeUnit.NANOSECONDS.toSeconds(idle));
+            SessionHandler.this.outboundWriter.close(this.session, IDLE);
+        }
+
+    }
+}
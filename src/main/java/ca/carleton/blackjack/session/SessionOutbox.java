@@ -0,0 +1,226 @@
+package ca.carleton.blackjack.session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Everything waiting to be written to one session. Messages are queued from any thread and written one at a time, in
+ * order, on the shared writer pool - the same way a table's mailbox runs its tasks.
+ * <p/>
+ * A session can ask for only the latest state. Card updates are then queued as state frames, and a full snapshot
+ * replaces any state frames that haven't been written yet - so a client that falls behind skips straight to the newest
+ * cards, while everything else still arrives in order.
+ * <p/>
+ * Created by Mike on 11/29/2015.
+ */
+class SessionOutbox implements Runnable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SessionOutbox.class);
+
+    /**
+     * How many messages we write before giving the thread back to other sessions.
+     */
+    private static final int BATCH_SIZE = 16;
+
+    private final WebSocketSession session;
+
+    private final Executor writers;
+
+    private final Queue<Entry> messages = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /**
+     * Bytes queued but not yet written - characters, for text.
+     */
+    private final AtomicLong buffered = new AtomicLong();
+
+    /**
+     * When the write in progress started, or 0 if nothing is being written.
+     */
+    private volatile long sendingSince;
+
+    /**
+     * Set once the session should be closed after what is already queued.
+     */
+    private volatile CloseStatus closing;
+
+    private final AtomicBoolean aborted = new AtomicBoolean();
+
+    private volatile boolean latestOnly;
+
+    SessionOutbox(final WebSocketSession session, final Executor writers) {
+        this.session = session;
+        this.writers = writers;
+    }
+
+    boolean isLatestOnly() {
+        return this.latestOnly;
+    }
+
+    void setLatestOnly(final boolean latestOnly) {
+        this.latestOnly = latestOnly;
+    }
+
+    /**
+     * @return whether anything is still waiting to be written, or being written.
+     */
+    boolean isBehind() {
+        return this.sendingSince != 0L || !this.messages.isEmpty();
+    }
+
+    /**
+     * Queue a message, unless that would go over either limit.
+     *
+     * @param message        the message.
+     * @param state          whether it is a state frame, see above.
+     * @param snapshot       whether it is a full snapshot, which replaces any state frames still waiting.
+     * @param bufferLimit    most bytes that may be waiting.
+     * @param sendTimeMillis longest a single write may have been going on for.
+     * @return false if a limit was hit - nothing was queued.
+     */
+    boolean offer(final WebSocketMessage<?> message,
+                  final boolean state,
+                  final boolean snapshot,
+                  final long bufferLimit,
+                  final long sendTimeMillis) {
+        if (this.aborted.get()) {
+            return false;
+        }
+        final long since = this.sendingSince;
+        if (since != 0L && System.currentTimeMillis() - since > sendTimeMillis) {
+            return false;
+        }
+        if (snapshot) {
+            for (final Entry waiting : this.messages) {
+                // Only counts if we took it before the writer did.
+                if (waiting.state && this.messages.remove(waiting)) {
+                    this.buffered.addAndGet(-waiting.size);
+                }
+            }
+        }
+        final Entry entry = new Entry(message, state);
+        if (this.buffered.addAndGet(entry.size) > bufferLimit) {
+            this.buffered.addAndGet(-entry.size);
+            return false;
+        }
+        this.messages.add(entry);
+        this.schedule();
+        return true;
+    }
+
+    /**
+     * Close the session once everything queued so far has been written.
+     *
+     * @param status the status to close with.
+     */
+    void closeAfterQueued(final CloseStatus status) {
+        this.closing = status;
+        this.schedule();
+    }
+
+    /**
+     * Forget anything queued and close the session now, from a writer thread. A write that is stuck is abandoned.
+     *
+     * @param status the status to close with.
+     * @return false if the outbox had already been aborted.
+     */
+    boolean abort(final CloseStatus status) {
+        if (!this.aborted.compareAndSet(false, true)) {
+            return false;
+        }
+        this.closing = status;
+        this.messages.clear();
+        this.buffered.set(0L);
+        this.writers.execute(() -> this.close(status));
+        return true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final Entry entry = this.messages.poll();
+                if (entry == null) {
+                    break;
+                }
+                this.buffered.addAndGet(-entry.size);
+                this.write(entry.message);
+            }
+            final CloseStatus status = this.closing;
+            if (status != null && this.messages.isEmpty()) {
+                this.close(status);
+            }
+        } finally {
+            this.scheduled.set(false);
+            if (!this.messages.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+
+    private void write(final WebSocketMessage<?> message) {
+        if (!this.session.isOpen()) {
+            this.messages.clear();
+            this.buffered.set(0L);
+            return;
+        }
+        this.sendingSince = System.currentTimeMillis();
+        try {
+            this.session.sendMessage(message);
+        } catch (final IOException | RuntimeException exception) {
+            LOG.error("Error sending a message to {}.", this.session.getId(), exception);
+            this.abort(CloseStatus.PROTOCOL_ERROR);
+        } finally {
+            this.sendingSince = 0L;
+        }
+    }
+
+    private void close(final CloseStatus status) {
+        if (!this.session.isOpen()) {
+            return;
+        }
+        try {
+            this.session.close(status);
+        } catch (final IOException exception) {
+            LOG.warn("Error closing session {}: {}.", this.session.getId(), exception.getMessage());
+        }
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            this.writers.execute(this);
+        }
+    }
+
+    private static final class Entry {
+
+        private final WebSocketMessage<?> message;
+
+        private final boolean state;
+
+        private final int size;
+
+        private Entry(final WebSocketMessage<?> message, final boolean state) {
+            this.message = message;
+            this.state = state;
+            // Counting a text message's bytes would mean encoding it just to find out.
+            this.size = message instanceof TextMessage
+                    ? ((TextMessage) message).getPayload().length()
+                    : message.getPayloadLength();
+        }
+
+    }
+
+}
@@ -0,0 +1,216 @@
+package ca.carleton.blackjack.simulation;
+
+import ca.carleton.blackjack.game.BlackJackGame;
+import ca.carleton.blackjack.game.BlackJackService;
+import ca.carleton.blackjack.game.DealerOutcomeCalculator;
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.Shoe;
+import ca.carleton.blackjack.game.ShoePool;
+import ca.carleton.blackjack.game.TurnHandler;
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.journal.RoundJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays rounds of blackjack with nobody but AI at the table, as fast as the machine allows.
+ * <p/>
+ * Only the game beans are started - no web server and no sockets. Each table is its own {@link BlackJackGame} and
+ * plays through the same turn order, AI and dealer logic the real game uses. Tables are spread over every core with
+ * fork-join. Run it with:
+ * <p/>
+ * {@code mvn compile exec:java -Dexec.args="--blackjack.simulation.rounds=1000000"}
+ * <p/>
+ * The round journal is off unless {@code --blackjack.journal.enabled=true} is given.
+ * <p/>
+ * This isn't a {@code @Configuration} on purpose, so the web application's component scan leaves it out.
+ * <p/>
+ * Created by Mike on 11/25/2015.
+ */
+@Import({BlackJackGame.class,
+        BlackJackService.class,
+        DealerOutcomeCalculator.class,
+        Shoe.class,
+        ShoePool.class,
+        TurnHandler.class,
+        RoundJournal.class})
+public class Simulation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Simulation.class);
+
+    @Value("${blackjack.simulation.tables:0}")
+    private int tables;
+
+    @Value("${blackjack.simulation.rounds:1000000}")
+    private long rounds;
+
+    @Value("${blackjack.simulation.seats:3}")
+    private int seats;
+
+    @Value("${blackjack.simulation.threads:0}")
+    private int threads;
+
+    @Autowired
+    private ObjectFactory<BlackJackGame> gameFactory;
+
+    @Autowired
+    private ObjectFactory<Shoe> shoeFactory;
+
+    @Autowired
+    private DealerOutcomeCalculator dealerOutcomeCalculator;
+
+    public static void main(final String[] args) {
+        try (final ConfigurableApplicationContext context = new SpringApplicationBuilder(Simulation.class)
+                .web(false)
+                .showBanner(false)
+                .properties("logging.level.ca.carleton.blackjack=ERROR",
+                        "logging.level.ca.carleton.blackjack.simulation=INFO",
+                        "blackjack.journal.enabled=false")
+                .run(args)) {
+            context.getBean(Simulation.class).run();
+        }
+    }
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    /**
+     * Play every table's rounds and log the results.
+     *
+     * @return the combined results.
+     */
+    public SimulationResult run() {
+        if (this.seats < 1 || this.seats > BlackJackGame.MAX_SEATS) {
+            throw new IllegalArgumentException("Tables have 1 to " + BlackJackGame.MAX_SEATS + " AI seats, not "
+                    + this.seats);
+        }
+        final int parallelism = this.threads > 0 ? this.threads : Runtime.getRuntime().availableProcessors();
+        // A few tables per thread keeps every core busy even when some tables finish early.
+        final int tableCount = this.tables > 0 ? this.tables : parallelism * 4;
+        LOG.info("Simulating {} rounds on {} tables of {} AI, using {} threads.",
+                this.rounds,
+                tableCount,
+                this.seats,
+                parallelism);
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final long start = System.nanoTime();
+        final SimulationResult result;
+        try {
+            result = pool.invoke(new TableTask(0, tableCount, tableCount));
+        } finally {
+            pool.shutdown();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        LOG.info("Finished in {} ms - {} rounds/sec.",
+                TimeUnit.NANOSECONDS.toMillis(elapsed),
+                String.format("%.0f", result.getRounds() / (elapsed / 1e9)));
+        LOG.info("\n{}", result);
+        LOG.info("Dealer expected to finish from a full shoe on:{}", this.expectedDealerOutcomes());
+        return result;
+    }
+
+    /**
+     * What {@link DealerOutcomeCalculator} says the dealer finishes on when they're first to draw from a full shoe -
+     * close to what the tables saw, since the AI's cards barely change the odds.
+     */
+    private String expectedDealerOutcomes() {
+        final double[] outcomes = this.dealerOutcomeCalculator.getOutcomes(
+                DealerOutcomeCalculator.unseen(this.shoeFactory.getObject()));
+        final StringBuilder builder = new StringBuilder();
+        for (int outcome = 0; outcome < DealerOutcomeCalculator.BUST; outcome++) {
+            builder.append(String.format(" %d=%.2f%%", 17 + outcome, 100.0 * outcomes[outcome]));
+        }
+        return builder.append(String.format(" bust=%.2f%%", 100.0 * outcomes[DealerOutcomeCalculator.BUST]))
+                .toString();
+    }
+
+    /**
+     * Play the given number of rounds on a fresh table.
+     */
+    private SimulationResult playTable(final long roundsToPlay) {
+        final BlackJackGame game = this.gameFactory.getObject();
+        game.setSeats(this.seats);
+        game.openLobby(0);
+        game.registerAI();
+
+        final SimulationResult result = new SimulationResult();
+        for (long round = 0; round < roundsToPlay; round++) {
+            playRound(game);
+            result.record(game.getConnectedPlayers());
+            game.resetRound();
+        }
+        return result;
+    }
+
+    /**
+     * Play one round from the deal until every hand is resolved. Everyone at the table must be AI.
+     *
+     * @param game the game, with its players registered.
+     */
+    public static void playRound(final BlackJackGame game) {
+        game.dealInitialHands();
+        while (!game.isGameResolved()) {
+            final Player next = game.getNextPlayer();
+            game.doAITurn((AIPlayer) next);
+            if (next.getLastOption() == GameOption.SEVEN_CARD_CHARLIE) {
+                game.resolveRoundSevenCardCharlie(next);
+                return;
+            }
+        }
+        game.resolveRound();
+    }
+
+    /**
+     * Splits a range of tables in half until there is one table to play.
+     */
+    private class TableTask extends RecursiveTask<SimulationResult> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+
+        private final int to;
+
+        private final int tableCount;
+
+        private TableTask(final int from, final int to, final int tableCount) {
+            this.from = from;
+            this.to = to;
+            this.tableCount = tableCount;
+        }
+
+        @Override
+        protected SimulationResult compute() {
+            if (this.to - this.from == 1) {
+                // Spread the remainder over the first few tables.
+                final long share = Simulation.this.rounds / this.tableCount
+                        + (this.from < Simulation.this.rounds % this.tableCount ? 1 : 0);
+                return Simulation.this.playTable(share);
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            final TableTask left = new TableTask(this.from, middle, this.tableCount);
+            left.fork();
+            final SimulationResult right = new TableTask(middle, this.to, this.tableCount).compute();
+            return right.merge(left.join());
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package ca.carleton.blackjack.simulation;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+
+import java.util.Collection;
+
+/**
+ * Tallies of how simulated rounds ended. Each table keeps its own, and they are merged once every table is done.
+ * <p/>
+ * Created by Mike on 11/25/2015.
+ */
+public class SimulationResult {
+
+    /**
+     * Dealer finishing totals are counted from 17 to 21, then anything under 17 (only a seven card charlie elsewhere
+     * stops the dealer early), then bust.
+     */
+    private static final int LOWEST_TOTAL = 17;
+
+    private static final int UNDER_17 = 5;
+
+    private static final int DEALER_BUST = 6;
+
+    private long rounds;
+
+    private long sevenCardCharlieRounds;
+
+    private long dealerWins;
+
+    private long aiHands;
+
+    private long aiWins;
+
+    private long aiBusts;
+
+    private long aiSevenCardCharlies;
+
+    private final long[] dealerTotals = new long[DEALER_BUST + 1];
+
+    /**
+     * Count a finished round.
+     *
+     * @param players everyone at the table, with their hand statuses set.
+     */
+    public void record(final Collection<Player> players) {
+        this.rounds++;
+        for (final Player player : players) {
+            final HandStatus status = player.getHand().getHandStatus();
+            if (status == HandStatus.SEVEN_CARD_CHARLIE) {
+                this.sevenCardCharlieRounds++;
+            }
+            if (((AIPlayer) player).isDealer()) {
+                if (status == HandStatus.WINNER) {
+                    this.dealerWins++;
+                }
+                final long total = player.getHand().getHandValue();
+                if (total > 21) {
+                    this.dealerTotals[DEALER_BUST]++;
+                } else if (total < LOWEST_TOTAL) {
+                    this.dealerTotals[UNDER_17]++;
+                } else {
+                    this.dealerTotals[(int) total - LOWEST_TOTAL]++;
+                }
+            } else {
+                this.aiHands++;
+                if (status == HandStatus.WINNER) {
+                    this.aiWins++;
+                } else if (status == HandStatus.SEVEN_CARD_CHARLIE) {
+                    this.aiSevenCardCharlies++;
+                }
+                if (player.getLastOption() == GameOption.BUST) {
+                    this.aiBusts++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add another table's tallies to this one.
+     *
+     * @param other the other result.
+     * @return this result.
+     */
+    public SimulationResult merge(final SimulationResult other) {
+        this.rounds += other.rounds;
+        this.sevenCardCharlieRounds += other.sevenCardCharlieRounds;
+        this.dealerWins += other.dealerWins;
+        this.aiHands += other.aiHands;
+        this.aiWins += other.aiWins;
+        this.aiBusts += other.aiBusts;
+        this.aiSevenCardCharlies += other.aiSevenCardCharlies;
+        for (int i = 0; i < this.dealerTotals.length; i++) {
+            this.dealerTotals[i] += other.dealerTotals[i];
+        }
+        return this;
+    }
+
+    public long getRounds() {
+        return this.rounds;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Rounds: %d (%s ended by a seven card charlie)%n",
+                this.rounds,
+                percent(this.sevenCardCharlieRounds, this.rounds)));
+        builder.append(String.format("Dealer won: %s of rounds%n", percent(this.dealerWins, this.rounds)));
+        builder.append(String.format("AI hands: %d - won %s, bust %s, seven card charlie %s%n",
+                this.aiHands,
+                percent(this.aiWins, this.aiHands),
+                percent(this.aiBusts, this.aiHands),
+                percent(this.aiSevenCardCharlies, this.aiHands)));
+        builder.append("Dealer finished on:");
+        for (int total = 0; total < UNDER_17; total++) {
+            builder.append(String.format(" %d=%s", LOWEST_TOTAL + total, percent(this.dealerTotals[total], this.rounds)));
+        }
+        builder.append(String.format(" <17=%s bust=%s",
+                percent(this.dealerTotals[UNDER_17], this.rounds),
+                percent(this.dealerTotals[DEALER_BUST], this.rounds)));
+        return builder.toString();
+    }
+
+    private static String percent(final long count, final long total) {
+        return String.format("%.2f%%", total == 0 ? 0.0 : 100.0 * count / total);
+    }
+
+}
@@ -1,6 +1,21 @@
 var ws = null;
 var playerId = null;
 
+/**
+ * Message keys by their binary opcode - the same numbers as MessageUtil.Message on the server.
+ */
+var OPCODES = [null, 'CONNECTED', 'OTHER+CONNECTED', 'DISCONNECTED', 'OTHER+DISCONNECTED', 'ADMIN', 'NOT+ACCEPTING',
+    'GAME+START', 'DEALING+CARDS', 'ADD+PLAYER+CARD', 'ADD+DEALER+CARD', 'ADD+OTHER+PLAYER+CARD', 'REVEAL+DEALER+CARD',
+    'REVEAL+OTHER+PLAYER+CARD', 'PLAYER+VALUE', 'DEALER+VALUE', 'OTHER+VALUE', 'READY+TO+START', 'OTHER+READY+TO+START',
+    'YOUR+TURN', 'SKIP', 'OTHER+MOVE', 'BUST', 'SEVEN+CHARLIE', 'AI+TURN', 'CHARLIE', 'WINNER', 'LOSER', 'RESET',
+    'RESET+ADMIN', 'ALL+QUIT', 'TIMED+OUT', 'TABLE+CLOSED',
+    'CANT+SEAT'];
+
+// Card indexes go rank by rank, each in this suit order. 52 is a face down card.
+var RANKS = ['2', '3', '4', '5', '6', '7', '8', '9', '10', 'j', 'q', 'k', 'a'];
+var SUITS = ['hearts', 'clubs', 'diams', 'spades'];
+var CARD_BACK = 52;
+
 function setConnected(connected) {
     document.getElementById('connect').disabled = connected;
     document.getElementById('disconnect').disabled = !connected;
@@ -16,6 +31,7 @@ function setAdmin(enabled) {
     document.getElementById('open').disabled = !enabled;
     document.getElementById('shutdown').disabled = !enabled;
     document.getElementById('numberPlayers').disabled = !enabled;
+    document.getElementById('numberSeats').disabled = !enabled;
 }
 
 function enableStart(enabled) {
@@ -32,18 +48,59 @@ function setUID(uid) {
         playerId = '';
     }
 }
+/**
+ * Get the table to join - taken from ?table=<id> in the page url.
+ */
+function getTableId() {
+    var match = /[?&]table=([^&#]+)/.exec(window.location.search);
+    return match != null ? decodeURIComponent(match[1]) : 'default';
+}
+
+/**
+ * Whether to ask for binary frames - needs a real WebSocket, and ?protocol=text in the page url turns it off.
+ */
+function useBinary() {
+    return window.WebSocket != null && window.ArrayBuffer != null
+        && !/[?&]protocol=text/.test(window.location.search);
+}
+
+/**
+ * Whether to only be sent the latest cards when we fall behind - asked for with ?updates=latest in the page url.
+ */
+function latestUpdatesOnly() {
+    return /[?&]updates=latest/.test(window.location.search);
+}
+
 /**
  * Connect to the server.
  */
 function connect() {
-    // hardcoded endpoint, oh no!
-    ws = new SockJS('/game');
+    // hardcoded endpoints, oh no!
+    if (useBinary()) {
+        var scheme = window.location.protocol === 'https:' ? 'wss://' : 'ws://';
+        ws = new WebSocket(scheme + window.location.host + '/game-ws', 'blackjack-binary');
+        ws.binaryType = 'arraybuffer';
+    } else {
+        ws = new SockJS('/game');
+    }
     ws.onopen = function () {
         setConnected(true);
         clientLog('Connection opened.');
+        ws.send('JOIN|' + getTableId());
+        if (latestUpdatesOnly()) {
+            ws.send('UPDATES|latest');
+        }
     };
     ws.onmessage = function (event) {
-        dispatch(event.data);
+        if (typeof event.data !== 'string') {
+            dispatchRecords(event.data);
+            return;
+        }
+        // The server batches everything from one move into a single frame, separated by record separators.
+        var messages = event.data.split('\u001E');
+        for (var i = 0; i < messages.length; i++) {
+            dispatch(messages[i]);
+        }
     };
     ws.onclose = function () {
         setUID();
@@ -83,7 +140,80 @@ function disconnect() {
  */
 function dispatch(message) {
     // split message into three: [SENDER, KEY, PAYLOAD]
-    var split = message.split('|');
+    handle(message.split('|'));
+}
+
+/**
+ * Decode a binary frame - records of [opcode][2 byte length][payload] - into the same parts a text message is split
+ * into, and handle each one.
+ *
+ * @param buffer the frame.
+ */
+function dispatchRecords(buffer) {
+    var view = new DataView(buffer);
+    var offset = 0;
+    while (offset + 3 <= buffer.byteLength) {
+        var key = OPCODES[view.getUint8(offset)];
+        var length = view.getUint16(offset + 1);
+        var payload = new Uint8Array(buffer, offset + 3, length);
+        var sender = '<strong>' + timeNow() + ' Server:</strong> ';
+        switch (key) {
+            case 'ADD+PLAYER+CARD':
+            case 'ADD+DEALER+CARD':
+                handle([sender, key, cardHTML(payload[0])]);
+                break;
+            case 'ADD+OTHER+PLAYER+CARD':
+                handle([sender, key, cardHTML(payload[0]), payload[1], decodeText(payload.subarray(2))]);
+                break;
+            case 'REVEAL+DEALER+CARD':
+                handle([sender, key, cardHTML(payload[0]), payload[1]]);
+                break;
+            case 'REVEAL+OTHER+PLAYER+CARD':
+                handle([sender, key, cardHTML(payload[0]), payload[1], payload[2]]);
+                break;
+            case 'PLAYER+VALUE':
+            case 'DEALER+VALUE':
+                handle([sender, key, payload[0]]);
+                break;
+            case 'OTHER+VALUE':
+                handle([sender, key, payload[0], payload[1]]);
+                break;
+            default:
+                handle([sender, key, decodeText(payload)]);
+                break;
+        }
+        offset += 3 + length;
+    }
+}
+
+/**
+ * The HTML for a card index - the same HTML the server sends in text messages.
+ */
+function cardHTML(index) {
+    if (index === CARD_BACK) {
+        return '<div class="card back">*</div>';
+    }
+    var rank = RANKS[Math.floor(index / SUITS.length)];
+    var suit = SUITS[index % SUITS.length];
+    return '<div class="card rank-' + rank + ' ' + suit + '">\n' +
+        '                        <span class="rank">' + rank + '</span>\n' +
+        '                        <span class="suit">&' + suit + ';</span>\n' +
+        '                    </div>';
+}
+
+function decodeText(bytes) {
+    if (window.TextDecoder != null) {
+        return new TextDecoder('utf-8').decode(bytes);
+    }
+    return decodeURIComponent(escape(String.fromCharCode.apply(null, bytes)));
+}
+
+/**
+ * Handle a message split into [SENDER, KEY, PAYLOAD...].
+ *
+ * @param split the message.
+ */
+function handle(split) {
     var logMessage = split[0].concat(split[2]);
     console.log(split);
     switch (split[1]) {
@@ -107,6 +237,10 @@ function dispatch(message) {
             setAdmin(true);
             enableStart(false);
             break;
+        case 'CANT+SEAT':
+            log(logMessage);
+            setAdmin(true);
+            break;
         case 'GAME+START':
             log(logMessage);
             break;
@@ -128,6 +262,13 @@ function dispatch(message) {
         case 'ADD+OTHER+PLAYER+CARD':
             addCardForOther(split[2], split[3], split[4]);
             break;
+        case 'REVEAL+DEALER+CARD':
+            revealCard('dealerHandCards', split[3], split[2]);
+            break;
+        case 'REVEAL+OTHER+PLAYER+CARD':
+            ensureOtherHand(split[3]);
+            revealCard('otherHandCards'.concat(split[3]), split[4], split[2]);
+            break;
         case 'PLAYER+VALUE':
             updatePlayerValue(split[2]);
             break;
@@ -167,7 +308,12 @@ function dispatch(message) {
             setGameOptionsEnabled(false);
             enableStart(true);
             break;
+        case 'TIMED+OUT':
+            log(logMessage);
+            setGameOptionsEnabled(false);
+            break;
         case 'ALL+QUIT':
+        case 'TABLE+CLOSED':
             log(logMessage);
             setGameOptionsEnabled(false);
             setAdmin(false);
@@ -220,6 +366,7 @@ function addCardForDealer(card) {
  * Add a new card for another player.
  */
 function addCardForOther(card, id, sessionID) {
+    ensureOtherHand(id);
     var li = document.createElement('li');
     li.innerHTML = card;
     console.log('Trying to append to ' + 'otherHandCards'.concat(id));
@@ -227,6 +374,19 @@ function addCardForOther(card, id, sessionID) {
     document.getElementById('otherHandText'.concat(id)).innerHTML = "Other Player's Hand (" + sessionID + ")";
 }
 
+/**
+ * Turn over a card that was sent face down. If we don't have it, our cards are out of date - ask for them all again.
+ */
+function revealCard(listId, slot, card) {
+    var li = document.getElementById(listId).children[slot];
+    if (li == null) {
+        console.log('No card ' + slot + ' in ' + listId + ' - asking for a resync.');
+        ws.send('RESYNC');
+        return;
+    }
+    li.innerHTML = card;
+}
+
 function removeOldValue(old) {
     var split = old.split('~');
     return split[0];
@@ -243,6 +403,7 @@ function updateDealerValue(value) {
 }
 
 function updateOtherValue(index, value) {
+    ensureOtherHand(index);
     var old = removeOldValue(document.getElementById('otherHandText'.concat(index)).innerHTML);
     document.getElementById('otherHandText'.concat(index)).innerHTML = old.concat(" ~ Value: ".concat(value));
 }
@@ -256,8 +417,34 @@ function resetDealerText() {
 }
 
 function resetOtherText() {
-    document.getElementById('otherHandText1').innerHTML = "Other Player's Hand";
-    document.getElementById('otherHandText2').innerHTML = "Other Player's Hand";
+    for (var i = 1; document.getElementById('otherHandText'.concat(i)) != null; i++) {
+        document.getElementById('otherHandText'.concat(i)).innerHTML = "Other Player's Hand";
+    }
+}
+
+/**
+ * The page has room for two other players - bigger tables get another hand added after the last one as needed.
+ */
+function ensureOtherHand(index) {
+    index = parseInt(index, 10);
+    if (index <= 1 || document.getElementById('otherHandCards'.concat(index)) != null) {
+        return;
+    }
+    ensureOtherHand(index - 1);
+    var previous = document.getElementById('otherHand'.concat(index - 1));
+    var label = document.createElement('label');
+    label.id = 'otherHandText'.concat(index);
+    label.htmlFor = 'otherHand'.concat(index);
+    label.innerHTML = "Other Player's Hand";
+    var hand = document.createElement('div');
+    hand.id = 'otherHand'.concat(index);
+    hand.className = 'playingCards fourColours';
+    var cards = document.createElement('ul');
+    cards.id = 'otherHandCards'.concat(index);
+    cards.className = 'table';
+    hand.appendChild(cards);
+    previous.parentNode.insertBefore(label, previous.nextSibling);
+    previous.parentNode.insertBefore(hand, label.nextSibling);
 }
 
 /**
@@ -267,8 +454,9 @@ function removeCards() {
     console.log('Emptied cards.');
     document.getElementById('playerHandCards').innerHTML = "";
     document.getElementById('dealerHandCards').innerHTML = "";
-    document.getElementById('otherHandCards1').innerHTML = "";
-    document.getElementById('otherHandCards2').innerHTML = "";
+    for (var i = 1; document.getElementById('otherHandCards'.concat(i)) != null; i++) {
+        document.getElementById('otherHandCards'.concat(i)).innerHTML = "";
+    }
 }
 
 /**
@@ -277,12 +465,14 @@ function removeCards() {
 function acceptOthers() {
     if (ws != null) {
         var numP = document.getElementById('numberPlayers').value;
+        var seats = document.getElementById('numberSeats').value;
 
         clientLog('Opening the lobby with specified settings. When the correct number of players have connected, the start button will become available.');
-        var send = 'ACCEPT|' + numP;
+        var send = 'ACCEPT|' + numP + (seats !== '' ? '|' + seats : '');
         ws.send(send);
         document.getElementById('open').disabled = true;
         document.getElementById('numberPlayers').disabled = true;
+        document.getElementById('numberSeats').disabled = true;
     } else {
         alert('Connection not established, please connect.');
     }
@@ -293,15 +483,21 @@ function acceptOthers() {
  * @param message the message.
  */
 function clientLog(message) {
+    var prefix = '<strong>' + timeNow() + ' Client' + '</strong>: ';
+    log(prefix + message);
+}
+
+/**
+ * The time as HH:mm.
+ */
+function timeNow() {
     var pad = '00';
     var date = new Date();
     var hour = "" + date.getHours();
     var hourPad = pad.substring(0, pad.length - hour.length) + hour;
     var min = "" + date.getMinutes();
     var minPad = pad.substring(0, pad.length - min.length) + min;
-    var hourMin = hourPad + ':' + minPad;
-    var prefix = '<strong>' + hourMin + ' Client' + '</strong>: ';
-    log(prefix + message);
+    return hourPad + ':' + minPad;
 }
 
 /**
@@ -0,0 +1,147 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import ca.carleton.blackjack.journal.RoundJournal;
+import ca.carleton.blackjack.simulation.Simulation;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the dealer outcome calculator.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class DealerOutcomeCalculatorTest {
+
+    private static final int ACE = 0;
+
+    private static final int SIX = 5;
+
+    private static final int TENS = 9;
+
+    private DealerOutcomeCalculator calculator;
+
+    @Before
+    public void setUp() {
+        this.calculator = new DealerOutcomeCalculator();
+        ReflectionTestUtils.setField(this.calculator, "capacity", 100000);
+        this.calculator.init();
+    }
+
+    @Test
+    public void standsOnSeventeenWithoutAnAce() {
+        final int[] unseen = new int[DealerOutcomeCalculator.VALUES];
+        unseen[TENS] = 16;
+
+        final double[] outcomes = this.calculator.getOutcomes(Card.of(Rank.SEVEN, Suit.SPADES), unseen);
+
+        assertThat(outcomes[0], is(1.0));
+    }
+
+    @Test
+    public void keepsHittingOnceTheyHaveHadAnAce() {
+        final int[] unseen = new int[DealerOutcomeCalculator.VALUES];
+        unseen[TENS] = 16;
+
+        // Ace and ten make 21, which the dealer hits. The next ten lowers the ace back to 21, and the one after busts.
+        final double[] outcomes = this.calculator.getOutcomes(Card.of(Rank.ACE_HIGH, Suit.SPADES), unseen);
+
+        assertThat(outcomes[DealerOutcomeCalculator.BUST], is(1.0));
+    }
+
+    @Test
+    public void hitsEverythingOverSeventeen() {
+        final int[] unseen = new int[DealerOutcomeCalculator.VALUES];
+        unseen[SIX] = 3;
+
+        // 6, 6 then 6 makes 18 - hit again and bust.
+        final double[] outcomes = this.calculator.getOutcomes(Card.of(Rank.SIX, Suit.SPADES), unseen);
+
+        assertThat(outcomes[DealerOutcomeCalculator.BUST], is(1.0));
+    }
+
+    @Test
+    public void sevenCardsMakingTwentyOneIsACharlie() {
+        final int[] unseen = new int[DealerOutcomeCalculator.VALUES];
+        unseen[ACE] = 6;
+
+        // 5 and an ace make 16, then each ace drawn is lowered on the way from 17 up to 21 on the seventh card.
+        final double[] outcomes = this.calculator.getOutcomes(Card.of(Rank.FIVE, Suit.SPADES), unseen);
+
+        assertThat(outcomes[4], is(1.0));
+    }
+
+    @Test
+    public void neverFinishesOnEighteenToTwenty() {
+        final int[] unseen = DealerOutcomeCalculator.unseen(new Shoe(2, 0.75));
+
+        for (final Rank rank : Rank.values()) {
+            if (rank == Rank.ACE_LOW) {
+                continue;
+            }
+            final double[] outcomes = this.calculator.getOutcomes(Card.of(rank, Suit.HEARTS), unseen);
+            double sum = 0.0;
+            for (final double outcome : outcomes) {
+                sum += outcome;
+            }
+            assertThat(sum, is(closeTo(1.0, 1e-9)));
+            assertThat(outcomes[1] + outcomes[2] + outcomes[3], is(0.0));
+        }
+        assertThat(this.calculator.getHits(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void agreesWithTheDealerPlayingItOut() {
+        ((Logger) LoggerFactory.getLogger("ca.carleton.blackjack")).setLevel(Level.WARN);
+        final ShoePool shoePool = new ShoePool();
+        final ObjectFactory<Shoe> shoeFactory = () -> new Shoe(1, 1.0);
+        ReflectionTestUtils.setField(shoePool, "shoeFactory", shoeFactory);
+        shoePool.init();
+        final int rounds = 200000;
+        final long[] finished = new long[DealerOutcomeCalculator.OUTCOMES];
+        try {
+            final BlackJackGame game = dealerOnlyGame(shoePool);
+            for (int round = 0; round < rounds; round++) {
+                // A full deck every round, so each one matches the same prediction.
+                ReflectionTestUtils.setField(game, "shoe", shoeFactory.getObject());
+                Simulation.playRound(game);
+                final long total = game.getDealer().getHand().getHandValue();
+                finished[total > 21 ? DealerOutcomeCalculator.BUST : (int) total - 17]++;
+                game.resetRound();
+            }
+        } finally {
+            shoePool.shutdown();
+        }
+
+        final double[] expected = this.calculator.getOutcomes(DealerOutcomeCalculator.unseen(new Shoe(1, 1.0)));
+
+        for (int outcome = 0; outcome < DealerOutcomeCalculator.OUTCOMES; outcome++) {
+            assertThat((double) finished[outcome] / rounds, is(closeTo(expected[outcome], 0.005)));
+        }
+    }
+
+    private static BlackJackGame dealerOnlyGame(final ShoePool shoePool) {
+        final BlackJackGame game = new BlackJackGame();
+        ReflectionTestUtils.setField(game, "shoePool", shoePool);
+        ReflectionTestUtils.setField(game, "turnHandler", new TurnHandler());
+        ReflectionTestUtils.setField(game, "blackJackService", new BlackJackService());
+        ReflectionTestUtils.setField(game, "journal", new RoundJournal());
+        game.init();
+        game.openLobby(0);
+        game.registerDealer();
+        return game;
+    }
+
+}
@@ -0,0 +1,158 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import ca.carleton.blackjack.game.message.GameMessage;
+import ca.carleton.blackjack.game.message.MessageUtil.Message;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for a player's view of the hands at their table.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class HandViewTest {
+
+    private final HandView view = new HandView();
+
+    private Player self;
+
+    private Player dealer;
+
+    private Player other;
+
+    @Before
+    public void setUp() {
+        this.self = new Player(null);
+        this.self.getHand().addCard(Card.of(Rank.TEN, Suit.SPADES));
+        this.self.getHand().addCard(Card.of(Rank.SIX, Suit.HEARTS));
+        this.dealer = new Player(null);
+        this.dealer.getHand().addCard(Card.of(Rank.NINE, Suit.CLUBS), true);
+        this.dealer.getHand().addCard(Card.of(Rank.SEVEN, Suit.DIAMONDS));
+        this.other = new Player(null);
+        this.other.getHand().addCard(Card.of(Rank.FIVE, Suit.SPADES), true);
+        this.other.getHand().addCard(Card.of(Rank.EIGHT, Suit.HEARTS));
+    }
+
+    @Test
+    public void theFirstUpdateIsASnapshot() {
+        final List<Message> sent = this.update(1L, this.self, this.dealer, this.other);
+
+        assertThat(sent, contains(Message.DEALING_CARDS,
+                Message.ADD_PLAYER_CARD,
+                Message.ADD_PLAYER_CARD,
+                Message.PLAYER_VALUE,
+                Message.ADD_DEALER_CARD,
+                Message.ADD_DEALER_CARD,
+                Message.DEALER_VALUE,
+                Message.ADD_OTHER_PLAYER_CARD,
+                Message.ADD_OTHER_PLAYER_CARD,
+                Message.OTHER_VALUE));
+        assertThat(this.view.getVersion(), is(1L));
+    }
+
+    @Test
+    public void nothingIsSentWhenNothingChanged() {
+        this.update(1L, this.self, this.dealer, this.other);
+
+        assertThat(this.update(2L, this.self, this.dealer, this.other), is(empty()));
+        assertThat(this.view.getVersion(), is(2L));
+    }
+
+    @Test
+    public void aNewCardSendsOnlyThatCardAndTheValue() {
+        this.update(1L, this.self, this.dealer, this.other);
+        this.self.getHand().addCard(Card.of(Rank.THREE, Suit.CLUBS));
+
+        assertThat(this.update(2L, this.self, this.dealer, this.other),
+                contains(Message.ADD_PLAYER_CARD, Message.PLAYER_VALUE));
+    }
+
+    @Test
+    public void cardsSentFaceDownAreRevealed() {
+        this.update(1L, this.self, this.dealer, this.other);
+        this.dealer.getHand().reveal();
+        this.other.getHand().reveal();
+
+        assertThat(this.update(2L, this.self, this.dealer, this.other), contains(Message.REVEAL_DEALER_CARD,
+                Message.DEALER_VALUE,
+                Message.REVEAL_OTHER_PLAYER_CARD,
+                Message.OTHER_VALUE));
+    }
+
+    @Test
+    public void aSmallerHandMeansANewRoundAndASnapshot() {
+        this.update(1L, this.self, this.dealer, this.other);
+        this.self.getHand().clearHand();
+        this.self.getHand().addCard(Card.of(Rank.TWO, Suit.CLUBS));
+
+        final List<Message> sent = this.update(2L, this.self, this.dealer, this.other);
+
+        assertThat(sent.get(0), is(Message.DEALING_CARDS));
+        assertThat(sent.size(), is(9));
+    }
+
+    @Test
+    public void aNewRoundWithHandsTheSameSizeIsASnapshot() {
+        this.update(1L, this.self, this.dealer, this.other);
+        for (final Player player : new Player[]{this.self, this.dealer, this.other}) {
+            player.getHand().clearHand();
+        }
+        this.self.getHand().addCard(Card.of(Rank.TWO, Suit.CLUBS));
+        this.self.getHand().addCard(Card.of(Rank.THREE, Suit.CLUBS));
+        this.dealer.getHand().addCard(Card.of(Rank.FOUR, Suit.CLUBS), true);
+        this.dealer.getHand().addCard(Card.of(Rank.FIVE, Suit.CLUBS));
+        this.other.getHand().addCard(Card.of(Rank.SIX, Suit.CLUBS), true);
+        this.other.getHand().addCard(Card.of(Rank.SEVEN, Suit.CLUBS));
+
+        final List<Message> sent = this.update(2L, 2L, this.self, this.dealer, this.other);
+
+        assertThat(sent, contains(Message.DEALING_CARDS,
+                Message.ADD_PLAYER_CARD,
+                Message.ADD_PLAYER_CARD,
+                Message.PLAYER_VALUE,
+                Message.ADD_DEALER_CARD,
+                Message.ADD_DEALER_CARD,
+                Message.DEALER_VALUE,
+                Message.ADD_OTHER_PLAYER_CARD,
+                Message.ADD_OTHER_PLAYER_CARD,
+                Message.OTHER_VALUE));
+    }
+
+    @Test
+    public void changedSeatsMeanASnapshot() {
+        this.update(1L, this.self, this.dealer, this.other);
+        final Player replacement = new Player(null);
+        replacement.getHand().copyFrom(this.other.getHand());
+
+        final List<Message> sent = this.update(2L, this.self, this.dealer, replacement);
+
+        assertThat(sent.get(0), is(Message.DEALING_CARDS));
+    }
+
+    private List<Message> update(final long version, final Player... seats) {
+        return this.update(1L, version, seats);
+    }
+
+    private List<Message> update(final long round, final long version, final Player... seats) {
+        final List<GameMessage> messages = new ArrayList<>();
+        this.view.update(seats, round, version, player -> "AI-1", messages);
+        final List<Message> types = new ArrayList<>();
+        for (final GameMessage message : messages) {
+            types.add(message.getType());
+        }
+        return types;
+    }
+
+}
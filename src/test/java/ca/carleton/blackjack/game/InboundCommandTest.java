@@ -0,0 +1,91 @@
+package ca.carleton.blackjack.game;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for decoding what clients send.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class InboundCommandTest {
+
+    @Test
+    public void commandsWithoutAValue() {
+        assertThat(InboundCommand.decode("START_GAME").getType(), is(InboundCommand.Type.START_GAME));
+        assertThat(InboundCommand.decode("RESYNC").getType(), is(InboundCommand.Type.RESYNC));
+        assertThat(InboundCommand.decode("LEAVING").getType(), is(InboundCommand.Type.LEAVING));
+        assertThat(InboundCommand.decode("GAME_HIT").getOption(), is(GameOption.HIT));
+        assertThat(InboundCommand.decode("GAME_STAY").getOption(), is(GameOption.STAY));
+        assertThat(InboundCommand.decode("GAME_SPLIT").getOption(), is(GameOption.SPLIT));
+    }
+
+    @Test
+    public void commandsWithoutAValueAreShared() {
+        assertThat(InboundCommand.decode("GAME_HIT"), is(sameInstance(InboundCommand.decode("GAME_HIT"))));
+        assertThat(InboundCommand.decode("ACCEPT|3"), is(sameInstance(InboundCommand.decode("ACCEPT|3"))));
+    }
+
+    @Test
+    public void joinTakesAnOptionalTable() {
+        assertThat(InboundCommand.decode("JOIN").getTableId(), is(nullValue()));
+        final InboundCommand join = InboundCommand.decode("JOIN|table-2");
+
+        assertThat(join.getType(), is(InboundCommand.Type.JOIN));
+        assertThat(join.getTableId(), is("table-2"));
+        assertThat(join.toString(), is("JOIN|table-2"));
+    }
+
+    @Test
+    public void acceptTakesThePlayersAndOptionallyTheSeats() {
+        final InboundCommand players = InboundCommand.decode("ACCEPT|3");
+        final InboundCommand seats = InboundCommand.decode("ACCEPT|2|5");
+
+        assertThat(players.getType(), is(InboundCommand.Type.ACCEPT));
+        assertThat(players.getPlayers(), is(3));
+        assertThat(players.getSeats(), is(0));
+        assertThat(seats.getPlayers(), is(2));
+        assertThat(seats.getSeats(), is(5));
+        assertThat(seats.toString(), is("ACCEPT|2|5"));
+    }
+
+    @Test
+    public void acceptRejectsSizesATableCantHave() {
+        assertThat(InboundCommand.decode("ACCEPT"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|0"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|8"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|007"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|-1"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|x"), is(nullValue()));
+        // The table can't be smaller than the lobby, or bigger than the most seats.
+        assertThat(InboundCommand.decode("ACCEPT|4|3"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|4|8"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|4|"), is(nullValue()));
+        assertThat(InboundCommand.decode("ACCEPT|4|5|6"), is(nullValue()));
+    }
+
+    @Test
+    public void updatesIsAllOrLatest() {
+        assertThat(InboundCommand.decode("UPDATES|latest").isLatestOnly(), is(true));
+        assertThat(InboundCommand.decode("UPDATES|all").isLatestOnly(), is(false));
+        assertThat(InboundCommand.decode("UPDATES"), is(nullValue()));
+        assertThat(InboundCommand.decode("UPDATES|some"), is(nullValue()));
+    }
+
+    @Test
+    public void anythingElseIsRejected() {
+        assertThat(InboundCommand.decode(null), is(nullValue()));
+        assertThat(InboundCommand.decode(""), is(nullValue()));
+        assertThat(InboundCommand.decode("GAME_HIT|now"), is(nullValue()));
+        assertThat(InboundCommand.decode("GAME_HITS"), is(nullValue()));
+        assertThat(InboundCommand.decode("game_hit"), is(nullValue()));
+        assertThat(InboundCommand.decode("GAME_DOUBLE"), is(nullValue()));
+        assertThat(InboundCommand.decode("JOIN|" + new String(new char[InboundCommand.MAX_LENGTH])), is(nullValue()));
+    }
+
+}
@@ -0,0 +1,94 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the pool of pre-shuffled shoes.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class ShoePoolTest {
+
+    private static final int DEPTH = 2;
+
+    private final AtomicInteger built = new AtomicInteger();
+
+    private ShoePool pool;
+
+    @Before
+    public void setUp() {
+        this.pool = new ShoePool();
+        final ObjectFactory<Shoe> factory = () -> {
+            this.built.incrementAndGet();
+            return new Shoe(1, 0.75);
+        };
+        ReflectionTestUtils.setField(this.pool, "shoeFactory", factory);
+        ReflectionTestUtils.setField(this.pool, "depth", DEPTH);
+        this.pool.init();
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void handsOutFullShoesFromTheReadyQueue() throws InterruptedException {
+        this.waitUntilBuilt(DEPTH);
+
+        final Shoe shoe = this.pool.exchange(null);
+
+        assertThat(shoe.getRemaining(), is(Card.NUMBER_OF_CARDS));
+        assertThat(this.pool.getHits(), is(1L));
+        assertThat(this.pool.getMisses(), is(0L));
+    }
+
+    @Test
+    public void spentShoesAreShuffledAndReused() throws InterruptedException {
+        this.waitUntilBuilt(DEPTH);
+        final Shoe used = this.pool.exchange(null);
+        for (int i = 0; i < 40; i++) {
+            used.draw();
+        }
+
+        // Keep exchanging until the spent shoe comes back round - it should never need a new one built.
+        Shoe next = this.pool.exchange(used);
+        for (int i = 0; i < 100 && next != used; i++) {
+            Thread.sleep(10L);
+            next = this.pool.exchange(next);
+        }
+
+        assertThat(next == used, is(true));
+        assertThat(used.getRemaining(), is(Card.NUMBER_OF_CARDS));
+        assertThat(used.isCutCardReached(), is(false));
+    }
+
+    @Test
+    public void shufflesInlineWhenNothingIsReady() throws InterruptedException {
+        this.pool.shutdown();
+        this.waitUntilBuilt(1);
+        // Drain whatever the producer managed before it stopped.
+        while (this.pool.getMisses() == 0L) {
+            this.pool.exchange(null);
+        }
+
+        assertThat(this.pool.getMisses(), is(1L));
+    }
+
+    private void waitUntilBuilt(final int shoes) throws InterruptedException {
+        for (int i = 0; i < 500 && this.built.get() < shoes; i++) {
+            Thread.sleep(10L);
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the dealing shoe.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class ShoeTest {
+
+    @Test
+    public void holdsEveryCardOncePerDeck() {
+        final Shoe shoe = new Shoe(6, 0.75);
+        final int[] counts = shoe.countRemaining(new int[Card.NUMBER_OF_CARDS]);
+
+        assertThat(shoe.getDecks(), is(6));
+        assertThat(shoe.getRemaining(), is(6 * Card.NUMBER_OF_CARDS));
+        for (final int count : counts) {
+            assertThat(count, is(6));
+        }
+    }
+
+    @Test
+    public void drawingMovesTheCursorAndCountsDown() {
+        final Shoe shoe = new Shoe(1, 0.75);
+        final int[] before = shoe.countRemaining(new int[Card.NUMBER_OF_CARDS]);
+
+        final Card drawn = shoe.draw();
+
+        final int[] after = shoe.countRemaining(new int[Card.NUMBER_OF_CARDS]);
+        assertThat(shoe.getRemaining(), is(Card.NUMBER_OF_CARDS - 1));
+        assertThat(after[drawn.getIndex()], is(before[drawn.getIndex()] - 1));
+    }
+
+    @Test
+    public void cutCardIsReachedAtThePenetration() {
+        final Shoe shoe = new Shoe(2, 0.5);
+        for (int i = 0; i < Card.NUMBER_OF_CARDS - 1; i++) {
+            shoe.draw();
+            assertThat(shoe.isCutCardReached(), is(false));
+        }
+
+        shoe.draw();
+
+        assertThat(shoe.isCutCardReached(), is(true));
+    }
+
+    @Test
+    public void shufflingPutsEveryCardBack() {
+        final Shoe shoe = new Shoe(1, 0.75);
+        for (int i = 0; i < 45; i++) {
+            shoe.draw();
+        }
+
+        shoe.shuffle();
+
+        assertThat(shoe.getRemaining(), is(Card.NUMBER_OF_CARDS));
+        assertThat(shoe.isCutCardReached(), is(false));
+        final int[] counts = shoe.countRemaining(new int[Card.NUMBER_OF_CARDS]);
+        final int[] ones = new int[Card.NUMBER_OF_CARDS];
+        Arrays.fill(ones, 1);
+        assertThat(counts, is(ones));
+    }
+
+    @Test
+    public void runningDryReshufflesTheDiscardsAndKeepsDealing() {
+        final Shoe shoe = new Shoe(1, 1.0);
+        for (int i = 0; i < 40; i++) {
+            shoe.draw();
+        }
+        shoe.startRound();
+        final Set<Card> inPlay = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            assertThat(inPlay.add(shoe.draw()), is(true));
+        }
+        assertThat(shoe.getRemaining(), is(0));
+
+        // Every discard comes back once, and nothing in play comes round again.
+        for (int i = 0; i < 40; i++) {
+            assertThat(inPlay.add(shoe.draw()), is(true));
+        }
+
+        assertThat(inPlay.size(), is(Card.NUMBER_OF_CARDS));
+        assertThat(shoe.getRemaining(), is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cantDealWhenEveryCardIsInPlay() {
+        final Shoe shoe = new Shoe(1, 1.0);
+        shoe.startRound();
+        for (int i = 0; i <= Card.NUMBER_OF_CARDS; i++) {
+            shoe.draw();
+        }
+    }
+
+    @Test
+    public void theShoeAfterAReshuffleHoldsEverythingNotInPlay() {
+        final Shoe shoe = new Shoe(2, 1.0);
+        for (int i = 0; i < 2 * Card.NUMBER_OF_CARDS - 3; i++) {
+            shoe.draw();
+        }
+        shoe.startRound();
+        final int[] counts = new int[Card.NUMBER_OF_CARDS];
+        for (int i = 0; i < 5; i++) {
+            counts[shoe.draw().getIndex()]++;
+        }
+
+        shoe.countRemaining(counts);
+
+        final int[] twos = new int[Card.NUMBER_OF_CARDS];
+        Arrays.fill(twos, 2);
+        assertThat(counts, is(twos));
+        assertThat(shoe.getRemaining(), is(2 * Card.NUMBER_OF_CARDS - 5));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyDecks() {
+        new Shoe(Shoe.MAX_DECKS + 1, 0.75);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoPenetration() {
+        new Shoe(1, 0.0);
+    }
+
+}
@@ -0,0 +1,90 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the compiled strategy charts.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class StrategyTableTest {
+
+    private static final StrategyTable BASIC = StrategyTable.BASIC;
+
+    @Test
+    public void hardTotalsFollowTheChart() {
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.SIX), upcard(Rank.TEN)), is(GameOption.HIT));
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.SIX), upcard(Rank.SIX)), is(GameOption.STAY));
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.TWO), upcard(Rank.TWO)), is(GameOption.HIT));
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.TWO), upcard(Rank.FOUR)), is(GameOption.STAY));
+        assertThat(BASIC.decide(hand(Rank.FIVE, Rank.SIX), upcard(Rank.ACE_HIGH)), is(GameOption.HIT));
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.SEVEN), upcard(Rank.ACE_HIGH)), is(GameOption.STAY));
+    }
+
+    @Test
+    public void softTotalsFollowTheChart() {
+        assertThat(BASIC.decide(hand(Rank.ACE_HIGH, Rank.SEVEN), upcard(Rank.SEVEN)), is(GameOption.STAY));
+        assertThat(BASIC.decide(hand(Rank.ACE_HIGH, Rank.SEVEN), upcard(Rank.NINE)), is(GameOption.HIT));
+        assertThat(BASIC.decide(hand(Rank.ACE_HIGH, Rank.SIX), upcard(Rank.SIX)), is(GameOption.HIT));
+        assertThat(BASIC.decide(hand(Rank.ACE_HIGH, Rank.EIGHT), upcard(Rank.TEN)), is(GameOption.STAY));
+    }
+
+    @Test
+    public void pairsAreLookedUpBeforeTheTotal() {
+        assertThat(BASIC.decide(hand(Rank.EIGHT, Rank.EIGHT), upcard(Rank.ACE_HIGH)), is(GameOption.SPLIT));
+        assertThat(BASIC.decide(hand(Rank.ACE_HIGH, Rank.ACE_HIGH), upcard(Rank.TEN)), is(GameOption.SPLIT));
+        assertThat(BASIC.decide(hand(Rank.NINE, Rank.NINE), upcard(Rank.SEVEN)), is(GameOption.STAY));
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.TEN), upcard(Rank.SIX)), is(GameOption.STAY));
+        // Different ranks worth ten aren't a pair.
+        assertThat(BASIC.decide(hand(Rank.JACK, Rank.QUEEN), upcard(Rank.SIX)), is(GameOption.STAY));
+    }
+
+    @Test
+    public void aSplitHandIsNeverSplitAgain() {
+        final Hand hand = hand(Rank.EIGHT, Rank.EIGHT);
+        hand.splitHand();
+
+        // Played as a hard 16 instead.
+        assertThat(BASIC.decide(hand, upcard(Rank.TEN)), is(GameOption.HIT));
+    }
+
+    @Test
+    public void twentyOneAndUpStays() {
+        assertThat(BASIC.decide(hand(Rank.ACE_HIGH, Rank.KING), upcard(Rank.ACE_HIGH)), is(GameOption.STAY));
+        assertThat(BASIC.decide(hand(Rank.TEN, Rank.SIX, Rank.SEVEN), upcard(Rank.TWO)), is(GameOption.STAY));
+    }
+
+    @Test
+    public void tablesAreFoundByName() {
+        assertThat(StrategyTable.forName("basic"), is(BASIC));
+        assertThat(StrategyTable.forName("BASIC"), is(BASIC));
+        assertThat(StrategyTable.forName("house"), is(nullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownTablesAreRejected() {
+        StrategyTable.forName("card-counting");
+    }
+
+    private static Hand hand(final Rank... ranks) {
+        final Hand hand = new Hand();
+        final Suit[] suits = Suit.values();
+        for (int i = 0; i < ranks.length; i++) {
+            hand.addCard(Card.of(ranks[i], suits[i % suits.length]));
+        }
+        return hand;
+    }
+
+    private static Card upcard(final Rank rank) {
+        return Card.of(rank, Suit.SPADES);
+    }
+
+}
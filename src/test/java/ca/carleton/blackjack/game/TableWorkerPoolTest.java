@@ -0,0 +1,89 @@
+package ca.carleton.blackjack.game;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the table worker pool and mailboxes.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class TableWorkerPoolTest {
+
+    private TableWorkerPool pool;
+
+    @Before
+    public void setUp() {
+        this.pool = new TableWorkerPool();
+        ReflectionTestUtils.setField(this.pool, "workers", 2);
+        ReflectionTestUtils.setField(this.pool, "queueSize", 3);
+        this.pool.init();
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.shutdown();
+    }
+
+    @Test
+    public void overflowingTheQueueNeverRunsTableCodeOnTheCallersThread() throws InterruptedException {
+        final int tables = 50;
+        final int tasks = 200;
+        final CountDownLatch done = new CountDownLatch(tables * tasks);
+        final Set<String> problems = ConcurrentHashMap.newKeySet();
+        final int[] next = new int[tables];
+        final List<Executor> mailboxes = new ArrayList<>();
+        for (int table = 0; table < tables; table++) {
+            mailboxes.add(this.pool.newMailbox());
+        }
+
+        for (int task = 0; task < tasks; task++) {
+            for (int table = 0; table < tables; table++) {
+                final int thisTable = table;
+                final int thisTask = task;
+                mailboxes.get(table).execute(() -> {
+                    if (!Thread.currentThread().getName().startsWith("table-worker-")) {
+                        problems.add("ran on " + Thread.currentThread().getName());
+                    }
+                    if (next[thisTable] != thisTask) {
+                        problems.add("table " + thisTable + " ran out of order");
+                    }
+                    next[thisTable] = thisTask + 1;
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(30, TimeUnit.SECONDS), is(true));
+        assertThat(problems, is(empty()));
+        assertThat(this.pool.getOverflowed(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void aFailingTaskDoesNotStopTheMailbox() throws InterruptedException {
+        final Executor mailbox = this.pool.newMailbox();
+        final CountDownLatch done = new CountDownLatch(1);
+        mailbox.execute(() -> {
+            throw new IllegalStateException("Expected by the test.");
+        });
+        mailbox.execute(done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+}
@@ -0,0 +1,152 @@
+package ca.carleton.blackjack.game;
+
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the turn order ring.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class TurnHandlerTest {
+
+    private final TurnHandler turns = new TurnHandler();
+
+    private Player admin;
+
+    private Player real;
+
+    private AIPlayer firstAI;
+
+    private AIPlayer secondAI;
+
+    private AIPlayer dealer;
+
+    @Before
+    public void setUp() {
+        this.admin = new Player(session());
+        this.admin.setAdmin(true);
+        this.real = new Player(session());
+        this.firstAI = new AIPlayer(null);
+        this.secondAI = new AIPlayer(null);
+        this.dealer = new AIPlayer(null);
+        this.dealer.setDealer(true);
+        // Seated in a different order from the turns, to make sure seats are only used to find players.
+        this.dealer.setSeat(0);
+        this.firstAI.setSeat(1);
+        this.real.setSeat(2);
+        this.secondAI.setSeat(3);
+        this.admin.setSeat(4);
+        this.turns.initializeNewRound(Arrays.asList(this.dealer, this.firstAI, this.real, this.secondAI, this.admin));
+    }
+
+    @Test
+    public void adminThenRealPlayersThenAIThenTheDealer() {
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.admin)));
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.real)));
+        final Set<Player> ai = new HashSet<>();
+        ai.add(this.turns.getNextPlayer());
+        ai.add(this.turns.getNextPlayer());
+        assertThat(ai, containsInAnyOrder(this.firstAI, this.secondAI));
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.dealer)));
+        // Then round again.
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.admin)));
+    }
+
+    @Test
+    public void finishedPlayersAreSkipped() {
+        this.turns.finished(this.real);
+
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.admin)));
+        this.turns.finished(this.admin);
+        final Player ai = this.turns.getNextPlayer();
+        this.turns.getNextPlayer();
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.dealer)));
+        // Round again, without the two who finished.
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(ai)));
+    }
+
+    @Test
+    public void thePlayerAfterTheOneWhoJustFinishedIsNext() {
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.admin)));
+        this.turns.finished(this.admin);
+
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.real)));
+    }
+
+    @Test
+    public void nobodyIsNextOnceEveryoneIsDone() {
+        for (final Player player : Arrays.asList(this.admin, this.real, this.firstAI, this.secondAI, this.dealer)) {
+            this.turns.finished(player);
+        }
+        // Finishing twice changes nothing.
+        this.turns.finished(this.dealer);
+
+        assertThat(this.turns.getNextPlayer(), is(nullValue()));
+        assertThat(this.turns.isNextPlayerAI(), is(false));
+    }
+
+    @Test
+    public void anAITakesOverADisconnectedPlayersPlace() {
+        final AIPlayer replacement = new AIPlayer(null);
+        replacement.setSeat(this.real.getSeat());
+
+        assertThat(this.turns.replaceDisconnectedPlayer(this.real, replacement), is(true));
+
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.admin)));
+        assertThat(this.turns.isNextPlayerAI(), is(true));
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(replacement)));
+        // The player who left can't be finished any more - the AI can.
+        this.turns.finished(this.real);
+        this.turns.finished(replacement);
+        this.turns.getNextPlayer();
+        this.turns.getNextPlayer();
+        this.turns.getNextPlayer();
+        assertThat(this.turns.getNextPlayer(), is(sameInstance(this.admin)));
+        assertThat(this.turns.getNextPlayer(), is(not(sameInstance(replacement))));
+    }
+
+    @Test
+    public void playersNotInTheRoundCantBeReplaced() {
+        final Player stranger = new Player(session());
+        stranger.setSeat(5);
+
+        assertThat(this.turns.replaceDisconnectedPlayer(stranger, new AIPlayer(null)), is(false));
+    }
+
+    @Test
+    public void needsANewRoundOnceCleared() {
+        assertThat(this.turns.requiresReInitialization(), is(false));
+
+        this.turns.clearAll();
+
+        assertThat(this.turns.requiresReInitialization(), is(true));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void askingForTheNextPlayerBeforeARoundFails() {
+        new TurnHandler().getNextPlayer();
+    }
+
+    private static WebSocketSession session() {
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> null);
+    }
+
+}
@@ -0,0 +1,184 @@
+package ca.carleton.blackjack.game.entity.packed;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.AIPlayer;
+import ca.carleton.blackjack.game.entity.Player;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for packing players into a table of primitives and back.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class PackedTableTest {
+
+    @Test
+    public void playersComeBackAsTheyWent() {
+        final AIPlayer dealer = new AIPlayer(null);
+        dealer.setDealer(true);
+        dealer.getHand().addCard(Card.of(Rank.ACE_HIGH, Suit.SPADES), true);
+        dealer.getHand().addCard(Card.of(Rank.SIX, Suit.HEARTS));
+        final AIPlayer ai = new AIPlayer(null);
+        ai.getHand().addCard(Card.of(Rank.ACE_HIGH, Suit.CLUBS));
+        ai.getHand().addCard(Card.of(Rank.ACE_HIGH, Suit.DIAMONDS), true);
+        ai.getHand().addCard(Card.of(Rank.NINE, Suit.CLUBS));
+        ai.getHand().lowerAce(1);
+        ai.getHand().setHandStatus(HandStatus.WINNER);
+        ai.setLastOption(GameOption.STAY);
+
+        final PackedTable table = PackedTable.from(Arrays.asList(dealer, ai));
+
+        assertThat(table.isDealer(0), is(true));
+        assertThat(table.isDealer(1), is(false));
+        assertThat(table.getValue(0), is(17));
+        assertThat(table.getVisibleValue(0), is(6));
+        assertThat(table.getValue(1), is(21));
+        assertThat(table.getVisibleValue(1), is(20));
+        assertThat(table.getLastOption(0), is(nullValue()));
+        assertThat(table.getLastOption(1), is(GameOption.STAY));
+        assertSameHand(table.toAIPlayer(0).getHand(), dealer.getHand());
+        assertSameHand(table.toAIPlayer(1).getHand(), ai.getHand());
+        assertThat(table.toAIPlayer(0).isDealer(), is(true));
+    }
+
+    @Test
+    public void randomHandsSurviveTheRoundTrip() {
+        final Random random = new Random(11L);
+        for (int i = 0; i < 1000; i++) {
+            final Player player = new Player(null);
+            final Hand hand = player.getHand();
+            final int size = 1 + random.nextInt(12);
+            for (int slot = 0; slot < size; slot++) {
+                hand.addCard(Card.of(random.nextInt(Card.NUMBER_OF_CARDS)), random.nextBoolean());
+                if (hand.getCards().get(slot).isAce() && random.nextBoolean()) {
+                    hand.lowerAce(slot);
+                }
+            }
+            if (random.nextInt(4) == 0) {
+                hand.reveal();
+            }
+            if (random.nextInt(4) == 0) {
+                hand.splitHand();
+                for (int split = random.nextInt(4); split > 0; split--) {
+                    hand.addSplitCard(Card.of(random.nextInt(Card.NUMBER_OF_CARDS)));
+                }
+            }
+
+            final PackedTable table = PackedTable.from(Arrays.asList(player));
+            final Player copy = new Player(null);
+            table.applyTo(0, copy);
+
+            assertThat(table.getValue(0), is((int) hand.getHandValue()));
+            assertThat(table.getVisibleValue(0), is((int) hand.getVisibleHandValue()));
+            assertThat(table.isSplit(0), is(hand.isSplitHand()));
+            assertSameHand(copy.getHand(), hand);
+        }
+    }
+
+    @Test
+    public void dealingRevealingAndLoweringMatchAHand() {
+        final Hand hand = new Hand();
+        final PackedTable table = new PackedTable(1);
+        final Card[] cards = {Card.of(Rank.ACE_HIGH, Suit.SPADES), Card.of(Rank.ACE_HIGH, Suit.HEARTS),
+                Card.of(Rank.FIVE, Suit.CLUBS), Card.of(Rank.KING, Suit.CLUBS)};
+        for (int slot = 0; slot < cards.length; slot++) {
+            hand.addCard(cards[slot], slot == 0);
+            table.deal(0, cards[slot], slot == 0);
+            while (hand.isBust() && hand.lowerAce()) {
+                assertThat(table.lowerAce(0), is(true));
+            }
+            assertThat(table.getValue(0), is((int) hand.getHandValue()));
+            assertThat(table.getVisibleValue(0), is((int) hand.getVisibleHandValue()));
+        }
+        assertThat(table.lowerAce(0), is(false));
+
+        hand.reveal();
+        table.reveal(0);
+
+        assertThat(table.getVisibleValue(0), is((int) hand.getVisibleHandValue()));
+        assertSameHand(table.toHand(0), hand);
+    }
+
+    @Test
+    public void splitHandsAreKeptApart() {
+        final PackedTable table = new PackedTable(1);
+        table.deal(0, Card.of(Rank.EIGHT, Suit.SPADES), false);
+        table.split(0);
+        table.dealSplit(0, PackedCard.encode(Rank.ACE_HIGH, Suit.HEARTS));
+        table.dealSplit(0, PackedCard.encode(Rank.EIGHT, Suit.CLUBS));
+
+        assertThat(table.getCardCount(0), is(1));
+        assertThat(table.getSplitCardCount(0), is(2));
+        assertThat(table.getSplitValue(0), is((int) table.toHand(0).getSplitHandValue()));
+
+        table.clearHand(0);
+
+        assertThat(table.isSplit(0), is(false));
+        assertThat(table.getSplitCardCount(0), is(0));
+    }
+
+    @Test
+    public void holdsAsManyCardsAsAHand() {
+        final Player player = new Player(null);
+        for (int slot = 0; slot < Hand.MAX_CARDS; slot++) {
+            player.getHand().addCard(Card.of(slot % Card.NUMBER_OF_CARDS), slot % 3 == 0);
+        }
+
+        final PackedTable table = PackedTable.from(Arrays.asList(player));
+
+        assertThat(PackedHand.MAX_CARDS, is(Hand.MAX_CARDS));
+        assertThat(table.getCardCount(0), is(Hand.MAX_CARDS));
+        assertThat(table.getValue(0), is((int) player.getHand().getHandValue()));
+        assertThat(table.getVisibleValue(0), is((int) player.getHand().getVisibleHandValue()));
+        assertSameHand(table.toHand(0), player.getHand());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void noMoreCardsThanAHand() {
+        long hand = PackedHand.EMPTY;
+        for (int slot = 0; slot <= Hand.MAX_CARDS; slot++) {
+            hand = PackedHand.add(hand, PackedCard.encode(Rank.TWO, Suit.CLUBS));
+        }
+    }
+
+    @Test
+    public void cardsKeepTheirSlotBitsApartFromTheCard() {
+        final byte card = PackedCard.lower(PackedCard.encode(Card.of(Rank.ACE_HIGH, Suit.DIAMONDS), true));
+
+        assertThat(PackedCard.decode(card), is(Card.of(Rank.ACE_HIGH, Suit.DIAMONDS)));
+        assertThat(PackedCard.isHidden(card), is(true));
+        assertThat(PackedCard.isLowAce(card), is(true));
+        assertThat(PackedCard.value(card), is(1));
+        assertThat(PackedCard.isHidden(PackedCard.show(card)), is(false));
+        assertThat(PackedCard.suit(card), is(Suit.DIAMONDS.ordinal()));
+    }
+
+    private static void assertSameHand(final Hand actual, final Hand expected) {
+        assertThat(actual.getCards(), is(expected.getCards()));
+        for (int slot = 0; slot < expected.size(); slot++) {
+            assertThat(actual.isHidden(slot), is(expected.isHidden(slot)));
+            assertThat(actual.isLowAce(slot), is(expected.isLowAce(slot)));
+        }
+        assertThat(actual.getHandValue(), is(expected.getHandValue()));
+        assertThat(actual.getVisibleHandValue(), is(expected.getVisibleHandValue()));
+        assertThat(actual.getHandStatus(), is(expected.getHandStatus()));
+        assertThat(actual.isSplitHand(), is(expected.isSplitHand()));
+        if (expected.isSplitHand()) {
+            assertThat(actual.getSplitCards(), is(expected.getSplitCards()));
+            assertThat(actual.getSplitHandValue(), is(expected.getSplitHandValue()));
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+package ca.carleton.blackjack.game.message;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the binary message records, decoded the way the client reads them.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class BinaryProtocolTest {
+
+    private static final Card KING = Card.of(Rank.KING, Suit.HEARTS);
+
+    @Test
+    public void cardsAreSentAsTheirIndex() {
+        final Record record = decodeOne(CardFragments.playerCard(KING).toRecord());
+
+        assertThat(record.opcode, is(Message.ADD_PLAYER_CARD.getOpcode()));
+        assertThat(record.payload, is(new byte[]{(byte) KING.getIndex()}));
+    }
+
+    @Test
+    public void faceDownCardsAreSentAsTheBack() {
+        final Hand hand = new Hand();
+        hand.addCard(KING, true);
+
+        final Record record = decodeOne(CardFragments.dealerCard(hand, 0).toRecord());
+
+        assertThat(record.opcode, is(Message.ADD_DEALER_CARD.getOpcode()));
+        assertThat(record.payload, is(new byte[]{(byte) BinaryProtocol.CARD_BACK}));
+    }
+
+    @Test
+    public void otherPlayersCardsCarryTheirIndexAndId() {
+        final Hand hand = new Hand();
+        hand.addCard(KING);
+
+        final Record record = decodeOne(CardFragments.otherPlayerCard(hand, 0, 2, "AI-\u00e9").toRecord());
+
+        assertThat(record.opcode, is(Message.ADD_OTHER_PLAYER_CARD.getOpcode()));
+        assertThat(record.payload[0], is((byte) KING.getIndex()));
+        assertThat(record.payload[1], is((byte) 2));
+        assertThat(text(record, 2), is("AI-\u00e9"));
+    }
+
+    @Test
+    public void revealsCarryTheSlot() {
+        final Hand hand = new Hand();
+        hand.addCard(Card.of(Rank.TWO, Suit.CLUBS));
+        hand.addCard(KING, true);
+        hand.reveal();
+
+        final Record dealer = decodeOne(CardFragments.revealDealerCard(hand, 1).toRecord());
+        final Record other = decodeOne(CardFragments.revealOtherPlayerCard(hand, 1, 3).toRecord());
+
+        assertThat(dealer.opcode, is(Message.REVEAL_DEALER_CARD.getOpcode()));
+        assertThat(dealer.payload, is(new byte[]{(byte) KING.getIndex(), 1}));
+        assertThat(other.opcode, is(Message.REVEAL_OTHER_PLAYER_CARD.getOpcode()));
+        assertThat(other.payload, is(new byte[]{(byte) KING.getIndex(), 3, 1}));
+    }
+
+    @Test
+    public void valuesAreOneByteEach() {
+        final Record player = decodeOne(BinaryProtocol.encode(Message.PLAYER_VALUE, 21L));
+        final Record other = decodeOne(BinaryProtocol.encode(Message.OTHER_VALUE, 1, 17L));
+
+        assertThat(player.payload, is(new byte[]{21}));
+        assertThat(other.payload, is(new byte[]{1, 17}));
+    }
+
+    @Test
+    public void everythingElseIsItsSentenceWithoutTheKey() {
+        final Record record = decodeOne(BinaryProtocol.encode(Message.WINNER, "AI-1", 20));
+
+        assertThat(record.opcode, is(Message.WINNER.getOpcode()));
+        assertThat(text(record, 0), is("AI-1 won with a score of 20!"));
+    }
+
+    @Test
+    public void aFrameOfRecordsSplitsBackIntoEachOne() {
+        final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        final byte[] first = BinaryProtocol.encode(Message.DEALING_CARDS);
+        final byte[] second = CardFragments.playerCard(KING).toRecord();
+        frame.write(first, 0, first.length);
+        frame.write(second, 0, second.length);
+
+        final List<Record> records = decode(frame.toByteArray());
+
+        assertThat(records.size(), is(2));
+        assertThat(records.get(0).opcode, is(Message.DEALING_CARDS.getOpcode()));
+        assertThat(text(records.get(0), 0), is("Updated cards."));
+        assertThat(records.get(1).opcode, is(Message.ADD_PLAYER_CARD.getOpcode()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void numbersThatDontFitInAByteAreRejected() {
+        BinaryProtocol.encode(Message.PLAYER_VALUE, 256L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void payloadsOverTheLengthFieldAreRejected() {
+        final char[] id = new char[0x10000];
+        Arrays.fill(id, 'a');
+        BinaryProtocol.encode(Message.ADD_OTHER_PLAYER_CARD, 0, 0, new String(id));
+    }
+
+    private static Record decodeOne(final byte[] frame) {
+        final List<Record> records = decode(frame);
+        assertThat(records.size(), is(1));
+        return records.get(0);
+    }
+
+    /**
+     * Read a frame the way the client does: opcode, two byte length, then the payload.
+     */
+    private static List<Record> decode(final byte[] frame) {
+        final ByteBuffer buffer = ByteBuffer.wrap(frame);
+        final List<Record> records = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            final int opcode = buffer.get() & 0xFF;
+            final byte[] payload = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(payload);
+            records.add(new Record(opcode, payload));
+        }
+        return records;
+    }
+
+    private static String text(final Record record, final int from) {
+        return new String(record.payload, from, record.payload.length - from, StandardCharsets.UTF_8);
+    }
+
+    private static final class Record {
+
+        private final int opcode;
+
+        private final byte[] payload;
+
+        private Record(final int opcode, final byte[] payload) {
+            this.opcode = opcode;
+            this.payload = payload;
+        }
+
+    }
+
+}
@@ -0,0 +1,82 @@
+package ca.carleton.blackjack.game.message;
+
+import org.junit.Test;
+
+import java.util.MissingFormatArgumentException;
+
+import static ca.carleton.blackjack.game.message.MessageUtil.Message;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for parsing and filling in message templates.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class MessageTemplateTest {
+
+    @Test
+    public void argumentsAreFilledInInOrder() {
+        final MessageTemplate template = MessageTemplate.parse("|WINNER|%s won with a score of %s!");
+
+        assertThat(template.format("AI-1", 20), is("|WINNER|AI-1 won with a score of 20!"));
+    }
+
+    @Test
+    public void formatsTheSameAsStringFormat() {
+        final String expected = String.format(Message.MOVE_MADE.getContent(), "AI-2", "HIT");
+
+        assertThat(Message.MOVE_MADE.format("AI-2", "HIT"), is(expected));
+        assertThat(Message.OTHER_VALUE.format(1, 17L), is("|OTHER+VALUE|1|17"));
+    }
+
+    @Test
+    public void doublePercentIsAPercentSign() {
+        assertThat(MessageTemplate.parse("%s%% done").format(50), is("50% done"));
+    }
+
+    @Test
+    public void noArgumentsLeavesTheContentAsWritten() {
+        final MessageTemplate template = MessageTemplate.parse("%s has connected, 100%% sure.");
+
+        assertThat(template.format(), is("%s has connected, 100%% sure."));
+        assertThat(template.getContent(), is("%s has connected, 100%% sure."));
+    }
+
+    @Test
+    public void extraArgumentsAreIgnored() {
+        assertThat(MessageTemplate.parse("Hello %s.").format("you", "and you"), is("Hello you."));
+    }
+
+    @Test(expected = MissingFormatArgumentException.class)
+    public void missingArgumentsAreRejected() {
+        MessageTemplate.parse("%s won with a score of %s!").format("AI-1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void otherConversionsAreRejected() {
+        MessageTemplate.parse("%d cards left");
+    }
+
+    @Test
+    public void literalsAreNeverParsed() {
+        assertThat(MessageTemplate.literal("50%d").format("ignored"), is("50%d"));
+    }
+
+    @Test
+    public void freeTextWithAPercentSignIsSentAsWritten() {
+        final String text = MessageBuilder.message("Shoe is 75% dealt").withSender("Server").build().getPayload();
+
+        assertThat(text, endsWith("Server:</strong> Shoe is 75% dealt"));
+    }
+
+    @Test
+    public void freeTextIsFilledInWhenGivenArguments() {
+        final String text = MessageBuilder.message("%s joined").withFormat("AI-1").withSender("Server").build()
+                .getPayload();
+
+        assertThat(text, endsWith("Server:</strong> AI-1 joined"));
+    }
+
+}
@@ -0,0 +1,134 @@
+package ca.carleton.blackjack.journal;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static ca.carleton.blackjack.journal.RoundJournal.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for reading journal segments, written here byte by byte rather than by the journal.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class JournalReaderTest {
+
+    private static final long STARTED = 1448928000000L;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void printsEachRecordWithWhatAppliesToIt() throws IOException {
+        final ByteBuffer segment = header(3);
+        record(segment, 0, JournalEvent.DRAW, 2, Card.of(Rank.TEN, Suit.HEARTS).getIndex(), -1, SPLIT | AI, 0);
+        record(segment, 1, JournalEvent.OPTION, 2, -1, GameOption.BUST.ordinal(), 0, 25);
+        record(segment, 2, JournalEvent.RESOLUTION, 0, -1, HandStatus.LOSER.ordinal(), DEALER, 17);
+
+        final List<String> lines = this.print(this.write("node-000001.journal", segment));
+
+        assertThat(lines, contains(
+                "# node-000001.journal - server started 2015-12-01T00:00:00Z",
+                "2015-12-01T00:00:01Z table=3 round=9 DRAW seat=2 card=TEN of HEARTS split ai",
+                "2015-12-01T00:00:01Z table=3 round=9 OPTION seat=2 BUST value=25",
+                "2015-12-01T00:00:01Z table=3 round=9 RESOLUTION seat=0 LOSER dealer value=17"));
+    }
+
+    @Test
+    public void skipsRecordsThatWereNeverFinished() throws IOException {
+        final ByteBuffer segment = header(3);
+        record(segment, 0, JournalEvent.ROUND, -1, -1, -1, 0, 4);
+        record(segment, 2, JournalEvent.REVEAL, 1, -1, -1, 0, 12);
+
+        final List<String> lines = this.print(this.write("node-000001.journal", segment));
+
+        assertThat(lines, hasSize(3));
+        assertThat(lines.get(1), is("2015-12-01T00:00:01Z table=3 round=9 ROUND value=4"));
+        assertThat(lines.get(2), is("2015-12-01T00:00:01Z table=3 round=9 REVEAL seat=1 value=12"));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsFilesThatArentSegments() throws IOException {
+        final Path file = this.folder.newFile("notes.journal").toPath();
+        Files.write(file, "Not a journal at all.".getBytes(StandardCharsets.UTF_8));
+
+        this.print(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsOtherVersions() throws IOException {
+        final ByteBuffer segment = header(1);
+        segment.putShort(4, (short) (VERSION + 1));
+
+        this.print(this.write("node-000001.journal", segment));
+    }
+
+    @Test
+    public void readsADirectorysSegmentsInOrder() throws IOException {
+        final Path second = this.write("node-000002.journal", header(1));
+        final Path first = this.write("node-000001.journal", header(1));
+        this.folder.newFile("readme.txt");
+
+        assertThat(JournalReader.segments(this.folder.getRoot().toPath()), contains(first, second));
+        assertThat(JournalReader.segments(second), contains(second));
+    }
+
+    private static ByteBuffer header(final int records) {
+        final ByteBuffer segment = ByteBuffer.allocate(HEADER_BYTES + records * RECORD_BYTES);
+        segment.putInt(0, MAGIC);
+        segment.putShort(4, VERSION);
+        segment.putShort(6, (short) RECORD_BYTES);
+        segment.putLong(8, STARTED);
+        return segment;
+    }
+
+    private static void record(final ByteBuffer segment,
+                               final int index,
+                               final JournalEvent event,
+                               final int seat,
+                               final int card,
+                               final int detail,
+                               final int flags,
+                               final int value) {
+        final int offset = HEADER_BYTES + index * RECORD_BYTES;
+        segment.putLong(offset + TIME, STARTED + 1000L);
+        segment.putInt(offset + TABLE, 3);
+        segment.putInt(offset + ROUND, 9);
+        segment.put(offset + SEAT, (byte) seat);
+        segment.put(offset + CARD, (byte) card);
+        segment.put(offset + DETAIL, (byte) detail);
+        segment.put(offset + FLAGS, (byte) flags);
+        segment.putShort(offset + VALUE, (short) value);
+        segment.put(offset + EVENT, event.getCode());
+    }
+
+    private Path write(final String name, final ByteBuffer segment) throws IOException {
+        return Files.write(this.folder.getRoot().toPath().resolve(name), segment.array());
+    }
+
+    private List<String> print(final Path file) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JournalReader.print(file, new PrintStream(out, true, StandardCharsets.UTF_8.name()));
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8.name()).split("\\R"));
+    }
+
+}
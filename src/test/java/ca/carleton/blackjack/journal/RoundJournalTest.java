@@ -0,0 +1,228 @@
+package ca.carleton.blackjack.journal;
+
+import ca.carleton.blackjack.game.GameOption;
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.HandStatus;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the round journal, with segments of four records so rounds soon fill them.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class RoundJournalTest {
+
+    private static final int RECORDS_PER_SEGMENT = 4;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private RoundJournal journal;
+
+    @Before
+    public void setUp() {
+        this.journal = this.newJournal();
+    }
+
+    @After
+    public void tearDown() {
+        this.journal.shutdown();
+    }
+
+    @Test
+    public void recordsAreReadBackInOrder() throws IOException {
+        this.start(TimeUnit.HOURS.toMillis(1));
+        final int table = this.journal.newTable();
+
+        this.journal.round(table, 7L, 3);
+        this.journal.card(JournalEvent.DEAL, table, 7L, 2, Card.of(Rank.ACE_HIGH, Suit.SPADES),
+                RoundJournal.HIDDEN | RoundJournal.DEALER);
+        this.journal.option(table, 7L, 1, GameOption.STAY, 19L);
+        this.journal.shutdown();
+
+        final List<String> lines = this.read(this.segment(1));
+        assertThat(lines, hasSize(4));
+        assertThat(lines.get(1), endsWith(" table=1 round=7 ROUND value=3"));
+        assertThat(lines.get(2), endsWith(" table=1 round=7 DEAL seat=2 card=ACE_HIGH of SPADES hidden dealer"));
+        assertThat(lines.get(3), endsWith(" table=1 round=7 OPTION seat=1 STAY value=19"));
+        assertThat(this.journal.getRecords(), is(3L));
+        assertThat(this.journal.getDropped(), is(0L));
+    }
+
+    @Test
+    public void rollsOntoTheSegmentMappedAheadOfTime() throws IOException {
+        this.start(10L);
+        // Spares are mapped in order, so once the second is there the first is ready.
+        this.awaitSegment(3);
+
+        for (int seat = 0; seat < RECORDS_PER_SEGMENT + 2; seat++) {
+            this.journal.resolution(1, 1L, seat, HandStatus.WINNER, 20L);
+        }
+        this.journal.shutdown();
+
+        assertThat(this.read(this.segment(1)), hasSize(RECORDS_PER_SEGMENT + 1));
+        final List<String> next = this.read(this.segment(2));
+        assertThat(next, hasSize(3));
+        assertThat(next.get(1), endsWith(" seat=4 WINNER value=20"));
+        assertThat(this.metric("journal.rolls.waited"), is(0L));
+        assertThat(this.journal.getDropped(), is(0L));
+    }
+
+    @Test
+    public void waitsForTheFlusherRatherThanDropping() throws IOException {
+        // The flusher won't wake up by itself during the test, so nothing is mapped ahead until a table asks.
+        this.start(TimeUnit.HOURS.toMillis(1));
+        for (int seat = 0; seat < RECORDS_PER_SEGMENT + 2; seat++) {
+            this.journal.reveal(1, 1L, seat, 17L + seat);
+        }
+        this.journal.shutdown();
+
+        assertThat(this.metric("journal.rolls.waited"), is(greaterThanOrEqualTo(1L)));
+        assertThat(this.journal.getDropped(), is(0L));
+        final List<String> next = this.read(this.segment(2));
+        assertThat(next, hasSize(3));
+        assertThat(next.get(1), endsWith(" seat=4 value=21"));
+        assertThat(next.get(2), endsWith(" seat=5 value=22"));
+    }
+
+    @Test
+    public void losesNothingWhenTablesFillSegmentsFasterThanTheyAreMapped() throws Exception {
+        final int tables = 4;
+        final int rounds = 2000;
+        this.start(TimeUnit.HOURS.toMillis(1));
+        final ExecutorService pool = Executors.newFixedThreadPool(tables);
+        final List<Future<?>> written = new ArrayList<>();
+        for (int i = 0; i < tables; i++) {
+            final int table = this.journal.newTable();
+            written.add(pool.submit(() -> {
+                for (int round = 1; round <= rounds; round++) {
+                    this.journal.round(table, round, 2);
+                }
+            }));
+        }
+        for (final Future<?> future : written) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        this.journal.shutdown();
+
+        final Map<String, Integer> found = new HashMap<>();
+        for (final Path file : JournalReader.segments(this.folder.getRoot().toPath())) {
+            for (final String line : this.read(file)) {
+                if (!line.startsWith("#")) {
+                    found.merge(line.substring(line.indexOf(" table=")), 1, Integer::sum);
+                }
+            }
+        }
+        assertThat(this.journal.getDropped(), is(0L));
+        assertThat(this.journal.getRecords(), is((long) tables * rounds));
+        assertThat(found.size(), is(tables * rounds));
+        assertThat(new HashSet<>(found.values()), contains(1));
+    }
+
+    @Test
+    public void carriesOnFromTheLastSegmentInTheDirectory() throws IOException {
+        this.start(TimeUnit.HOURS.toMillis(1));
+        this.journal.round(1, 1L, 2);
+        this.journal.shutdown();
+
+        this.journal = this.newJournal();
+        this.start(TimeUnit.HOURS.toMillis(1));
+        this.journal.round(1, 1L, 4);
+        this.journal.shutdown();
+
+        assertThat(this.read(this.segment(2)).get(1), endsWith(" table=1 round=1 ROUND value=4"));
+    }
+
+    @Test
+    public void writesNothingWhenOff() {
+        ReflectionTestUtils.setField(this.journal, "enabled", false);
+        this.journal.init();
+
+        this.journal.round(this.journal.newTable(), 1L, 2);
+
+        assertThat(this.journal.isEnabled(), is(false));
+        assertThat(this.journal.getRecords(), is(0L));
+        assertThat(Arrays.asList(this.folder.getRoot().list()), is(empty()));
+    }
+
+    private RoundJournal newJournal() {
+        final RoundJournal journal = new RoundJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "directory", this.folder.getRoot().getPath());
+        ReflectionTestUtils.setField(journal, "node", "test");
+        ReflectionTestUtils.setField(journal, "segmentBytes",
+                RoundJournal.HEADER_BYTES + RECORDS_PER_SEGMENT * RoundJournal.RECORD_BYTES);
+        return journal;
+    }
+
+    private void start(final long flushMillis) {
+        ReflectionTestUtils.setField(this.journal, "flushMillis", flushMillis);
+        this.journal.init();
+    }
+
+    private Path segment(final int number) {
+        return this.folder.getRoot().toPath().resolve(String.format("test-%06d%s", number, RoundJournal.SUFFIX));
+    }
+
+    /**
+     * Wait for the flusher to create the given segment's file.
+     */
+    private void awaitSegment(final int number) {
+        final File file = this.segment(number).toFile();
+        final long giveUp = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!file.exists()) {
+            assertThat("Segment " + number + " was never mapped.", System.currentTimeMillis() < giveUp, is(true));
+            Thread.yield();
+        }
+    }
+
+    private long metric(final String name) {
+        for (final Metric<?> metric : this.journal.metrics()) {
+            if (metric.getName().equals(name)) {
+                return metric.getValue().longValue();
+            }
+        }
+        throw new AssertionError("No metric " + name);
+    }
+
+    private List<String> read(final Path file) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JournalReader.print(file, new PrintStream(out, true, StandardCharsets.UTF_8.name()));
+        return Arrays.asList(out.toString(StandardCharsets.UTF_8.name()).split("\\R"));
+    }
+
+}
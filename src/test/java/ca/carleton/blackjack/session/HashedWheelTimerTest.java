@@ -0,0 +1,138 @@
+package ca.carleton.blackjack.session;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for the wheel timer, with a short tick and a small wheel so deadlines go round it more than once.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class HashedWheelTimerTest {
+
+    private static final long TICK_MILLIS = 10L;
+
+    private static final int WHEEL_SIZE = 8;
+
+    private HashedWheelTimer timer;
+
+    @Before
+    public void setUp() {
+        this.timer = new HashedWheelTimer();
+        ReflectionTestUtils.setField(this.timer, "tickMillis", TICK_MILLIS);
+        ReflectionTestUtils.setField(this.timer, "wheelSize", WHEEL_SIZE);
+        this.timer.init();
+    }
+
+    @After
+    public void tearDown() {
+        this.timer.shutdown();
+    }
+
+    @Test
+    public void runsOnceTheDelayHasPassedAndNotBefore() throws InterruptedException {
+        this.assertRunsNoEarlierThan(50L);
+    }
+
+    @Test
+    public void deadlinesFurtherOutThanTheWheelWaitForTheirRound() throws InterruptedException {
+        // Two and a half turns of the wheel.
+        this.assertRunsNoEarlierThan(TICK_MILLIS * WHEEL_SIZE * 5 / 2);
+    }
+
+    @Test
+    public void laterDeadlinesRunLater() throws InterruptedException {
+        final Queue<String> order = new ConcurrentLinkedQueue<>();
+        final CountDownLatch ran = new CountDownLatch(2);
+        this.timer.schedule(() -> {
+            order.add("second");
+            ran.countDown();
+        }, 100L, TimeUnit.MILLISECONDS);
+        this.timer.schedule(() -> {
+            order.add("first");
+            ran.countDown();
+        }, 20L, TimeUnit.MILLISECONDS);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(order, contains("first", "second"));
+    }
+
+    @Test
+    public void cancelledTimersNeverRun() throws InterruptedException {
+        final AtomicBoolean ran = new AtomicBoolean();
+        final HashedWheelTimer.Timeout timeout = this.timer.schedule(() -> ran.set(true), 50L, TimeUnit.MILLISECONDS);
+
+        assertThat(timeout.cancel(), is(true));
+        assertThat(timeout.cancel(), is(false));
+        assertThat(this.timer.getPending(), is(0L));
+        Thread.sleep(200L);
+
+        assertThat(ran.get(), is(false));
+        assertThat(timeout.isCancelled(), is(true));
+        assertThat(timeout.isExpired(), is(false));
+    }
+
+    @Test
+    public void cancellingAnExpiredTimerDoesNothing() throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final HashedWheelTimer.Timeout timeout = this.timer.schedule(ran::countDown, 1L, TimeUnit.MILLISECONDS);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+
+        assertThat(timeout.isExpired(), is(true));
+        assertThat(timeout.cancel(), is(false));
+        assertThat(timeout.isCancelled(), is(false));
+    }
+
+    @Test
+    public void pendingCountsTimersThatHaveNotRun() throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            this.timer.schedule(ran::countDown, 20L, TimeUnit.MILLISECONDS);
+        }
+        this.timer.schedule(ran::countDown, 1L, TimeUnit.HOURS).cancel();
+
+        assertThat(this.timer.getPending(), is(3L));
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(this.timer.getPending(), is(0L));
+    }
+
+    @Test
+    public void aFailingTaskDoesNotStopTheTimer() throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(1);
+        this.timer.schedule(() -> {
+            throw new IllegalStateException("Expected by the test.");
+        }, 1L, TimeUnit.MILLISECONDS);
+        this.timer.schedule(ran::countDown, 30L, TimeUnit.MILLISECONDS);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    private void assertRunsNoEarlierThan(final long delayMillis) throws InterruptedException {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final AtomicLong elapsed = new AtomicLong();
+        final long start = System.nanoTime();
+        this.timer.schedule(() -> {
+            elapsed.set(System.nanoTime() - start);
+            ran.countDown();
+        }, delayMillis, TimeUnit.MILLISECONDS);
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(elapsed.get()), is(greaterThanOrEqualTo(delayMillis)));
+    }
+
+}
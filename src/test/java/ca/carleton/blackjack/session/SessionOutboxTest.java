@@ -0,0 +1,145 @@
+package ca.carleton.blackjack.session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Tests for a session's outbox, run on a writer pool the test steps through by hand.
+ * <p/>
+ * Created by Mike on 12/1/2015.
+ */
+public class SessionOutboxTest {
+
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final Queue<Runnable> writers = new ArrayDeque<>();
+
+    private final List<String> sent = new ArrayList<>();
+
+    private CloseStatus closed;
+
+    private SessionOutbox outbox;
+
+    @Before
+    public void setUp() {
+        final WebSocketSession session = (WebSocketSession) Proxy.newProxyInstance(
+                WebSocketSession.class.getClassLoader(),
+                new Class<?>[]{WebSocketSession.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isOpen":
+                            return this.closed == null;
+                        case "getId":
+                            return "session-1";
+                        case "sendMessage":
+                            this.sent.add(((TextMessage) args[0]).getPayload());
+                            return null;
+                        case "close":
+                            this.closed = (CloseStatus) args[0];
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        this.outbox = new SessionOutbox(session, this.writers::add);
+    }
+
+    @Test
+    public void messagesAreWrittenInOrder() {
+        this.offer("one", false, false);
+        this.offer("two", true, false);
+        this.offer("three", false, false);
+
+        this.runWriters();
+
+        assertThat(this.sent, contains("one", "two", "three"));
+        assertThat(this.outbox.isBehind(), is(false));
+    }
+
+    @Test
+    public void aSnapshotReplacesStateFramesStillWaiting() {
+        this.offer("joined", false, false);
+        this.offer("cards 1", true, false);
+        this.offer("cards 2", true, false);
+        this.offer("your turn", false, false);
+        this.offer("snapshot", true, true);
+
+        this.runWriters();
+
+        assertThat(this.sent, contains("joined", "your turn", "snapshot"));
+    }
+
+    @Test
+    public void framesAlreadyWrittenAreLeftAlone() {
+        this.offer("cards 1", true, false);
+        this.runWriters();
+        this.offer("cards 2", true, false);
+        this.offer("snapshot", true, true);
+
+        this.runWriters();
+
+        assertThat(this.sent, contains("cards 1", "snapshot"));
+    }
+
+    @Test
+    public void replacedFramesNoLongerCountAgainstTheBuffer() {
+        assertThat(this.outbox.offer(new TextMessage("aaaa"), true, false, 10L, NO_LIMIT), is(true));
+        assertThat(this.outbox.offer(new TextMessage("bbbb"), true, false, 10L, NO_LIMIT), is(true));
+        assertThat(this.outbox.offer(new TextMessage("cccccc"), true, false, 10L, NO_LIMIT), is(false));
+
+        assertThat(this.outbox.offer(new TextMessage("cccccc"), true, true, 10L, NO_LIMIT), is(true));
+
+        this.runWriters();
+        assertThat(this.sent, contains("cccccc"));
+    }
+
+    @Test
+    public void closesOnceEverythingQueuedIsWritten() {
+        this.offer("goodbye", false, false);
+        this.outbox.closeAfterQueued(CloseStatus.NORMAL);
+
+        this.runWriters();
+
+        assertThat(this.sent, contains("goodbye"));
+        assertThat(this.closed, is(CloseStatus.NORMAL));
+    }
+
+    @Test
+    public void nothingIsQueuedOnceAborted() {
+        this.offer("one", false, false);
+        this.outbox.abort(CloseStatus.SESSION_NOT_RELIABLE);
+
+        assertThat(this.outbox.offer(new TextMessage("two"), false, false, NO_LIMIT, NO_LIMIT), is(false));
+        this.runWriters();
+        assertThat(this.sent, is(empty()));
+        assertThat(this.closed, is(CloseStatus.SESSION_NOT_RELIABLE));
+    }
+
+    private void offer(final String text, final boolean state, final boolean snapshot) {
+        final WebSocketMessage<?> message = new TextMessage(text);
+        assertThat(this.outbox.offer(message, state, snapshot, NO_LIMIT, NO_LIMIT), is(true));
+    }
+
+    private void runWriters() {
+        Runnable task;
+        while ((task = this.writers.poll()) != null) {
+            task.run();
+        }
+    }
+
+}
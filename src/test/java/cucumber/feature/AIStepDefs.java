@@ -5,7 +5,6 @@ import ca.carleton.blackjack.game.BlackJackGame;
 import ca.carleton.blackjack.game.GameOption;
 import ca.carleton.blackjack.game.entity.AIPlayer;
 import ca.carleton.blackjack.game.entity.Player;
-import ca.carleton.blackjack.game.entity.card.Card;
 import ca.carleton.blackjack.game.entity.card.Rank;
 import ca.carleton.blackjack.game.entity.card.Suit;
 import cucumber.api.java.en.Given;
@@ -14,6 +13,7 @@ import cucumber.api.java.en.When;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 
+import static cucumber.feature.Hands.deal;
 import static org.hamcrest.CoreMatchers.both;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
@@ -39,7 +39,7 @@ public class AIStepDefs {
 
     @Given(".+card in the AI's hand with the rank '(.+)' and suit '(.+)' and hidden '(.+)'")
     public void addCard(final Rank rank, final Suit suit, final boolean hidden) {
-        this.ai.getHand().addCard(new Card(rank, suit, hidden));
+        deal(this.ai.getHand(), rank, suit, hidden);
     }
 
     @Given(".+player with two cards in their hand consisting of '(.+)' of '(.+)', hidden '(.+)' and '(.+)' of '(.+)', hidden '(.+)'")
@@ -48,8 +48,8 @@ public class AIStepDefs {
         this.blackJackGame.registerPlayer(null);
         // HACK but we only add 1 other player in the rest so it should work.
         this.otherPlayer = this.blackJackGame.getConnectedPlayers().get(0);
-        this.otherPlayer.getHand().addCard(new Card(rank, suit, hidden));
-        this.otherPlayer.getHand().addCard(new Card(rank2, suit2, hidden2));
+        deal(this.otherPlayer.getHand(), rank, suit, hidden);
+        deal(this.otherPlayer.getHand(), rank2, suit2, hidden2);
     }
 
     @When("the player has decided to stay their turn")
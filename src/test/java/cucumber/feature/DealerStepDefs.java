@@ -4,7 +4,6 @@ import ca.carleton.blackjack.BlackJackApplication;
 import ca.carleton.blackjack.game.BlackJackGame;
 import ca.carleton.blackjack.game.GameOption;
 import ca.carleton.blackjack.game.entity.AIPlayer;
-import ca.carleton.blackjack.game.entity.card.Card;
 import ca.carleton.blackjack.game.entity.card.Rank;
 import ca.carleton.blackjack.game.entity.card.Suit;
 import cucumber.api.java.en.Given;
@@ -15,6 +14,7 @@ import org.springframework.boot.test.SpringApplicationConfiguration;
 
 import javax.annotation.PostConstruct;
 
+import static cucumber.feature.Hands.deal;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
 
@@ -41,7 +41,7 @@ public class DealerStepDefs {
 
     @Given(".+card in the dealer's hand with the rank '(.+)' and suit '(.+)' and hidden '(.+)'")
     public void addCard(final Rank rank, final Suit suit, final boolean hidden) {
-        this.dealer.getHand().addCard(new Card(rank, suit, hidden));
+        deal(this.dealer.getHand(), rank, suit, hidden);
     }
 
     @When("^it is the dealer's turn to make a move")
@@ -77,4 +77,5 @@ public class DealerStepDefs {
     public void verifyHandSizeSame() {
         assertThat(this.dealer.getHand().getCards().size(), is(this.numberOfCards));
     }
+
 }
@@ -0,0 +1,28 @@
+package cucumber.feature;
+
+import ca.carleton.blackjack.game.entity.card.Card;
+import ca.carleton.blackjack.game.entity.card.Hand;
+import ca.carleton.blackjack.game.entity.card.Rank;
+import ca.carleton.blackjack.game.entity.card.Suit;
+
+/**
+ * Helpers for setting up hands in the step definitions.
+ * <p/>
+ * Created by Mike on 11/3/2015.
+ */
+final class Hands {
+
+    private Hands() {
+    }
+
+    /**
+     * Put the card in the hand - ACE_LOW in the feature files means an ace that has already been lowered to 1.
+     */
+    static void deal(final Hand hand, final Rank rank, final Suit suit, final boolean hidden) {
+        hand.addCard(Card.of(rank, suit), hidden);
+        if (rank == Rank.ACE_LOW) {
+            hand.lowerAce(hand.getCards().size() - 1);
+        }
+    }
+
+}
@@ -4,7 +4,6 @@ import ca.carleton.blackjack.BlackJackApplication;
 import ca.carleton.blackjack.game.BlackJackGame;
 import ca.carleton.blackjack.game.GameOption;
 import ca.carleton.blackjack.game.entity.Player;
-import ca.carleton.blackjack.game.entity.card.Card;
 import ca.carleton.blackjack.game.entity.card.HandStatus;
 import ca.carleton.blackjack.game.entity.card.Rank;
 import ca.carleton.blackjack.game.entity.card.Suit;
@@ -15,6 +14,7 @@ import cucumber.api.java.en.When;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.SpringApplicationConfiguration;
 
+import static cucumber.feature.Hands.deal;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.core.Is.is;
@@ -39,12 +39,12 @@ public class WinConditionStepDefs {
 
     @Given("player (\\d+) has a card with the rank '(.+)' and suit '(.+)' and hidden '(.+)'")
     public void addCardForPlayer(final int index, final Rank rank, final Suit suit, final boolean hidden) {
-        this.blackJackGame.getConnectedPlayers().get(index - 1).getHand().addCard(new Card(rank, suit, hidden));
+        deal(this.blackJackGame.getConnectedPlayers().get(index - 1).getHand(), rank, suit, hidden);
     }
 
     @Given("player (\\d+) has another card with the rank '(.+)' and suit '(.+)' and hidden '(.+)'")
     public void addCardForPlayer2(final int index, final Rank rank, final Suit suit, final boolean hidden) {
-        this.blackJackGame.getConnectedPlayers().get(index - 1).getHand().addCard(new Card(rank, suit, hidden));
+        deal(this.blackJackGame.getConnectedPlayers().get(index - 1).getHand(), rank, suit, hidden);
     }
 
     @And("player (\\d+) has his last option as '(.+)'")
@@ -69,12 +69,12 @@ public class WinConditionStepDefs {
 
     @Given(".+card in the player's hand with the rank '(.+)' and suit '(.+)' and hidden '(.+)'")
     public void addCard(final Rank rank, final Suit suit, final boolean hidden) {
-        this.player.getHand().addCard(new Card(rank, suit, hidden));
+        deal(this.player.getHand(), rank, suit, hidden);
     }
 
     @When("^the player draws his seventh card with the rank '(.+)' and suit '(.+)' and hidden '(.+)'")
     public void drawLastCard(final Rank rank, final Suit suit, final boolean hidden) throws Throwable {
-        this.player.getHand().addCard(new Card(rank, suit, hidden));
+        deal(this.player.getHand(), rank, suit, hidden);
         assertThat(this.player.getHand().getCards().size(), is(7));
     }
 
@@ -101,4 +101,5 @@ public class WinConditionStepDefs {
     public void checkWinner() throws Throwable {
         assertThat(this.player.getHand().getHandStatus(), is(HandStatus.SEVEN_CARD_CHARLIE));
     }
+
 }